@@ -0,0 +1,69 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class describes a single benchmark: an operation that is timed at several problem sizes.
+ * setUp is called once per size before any timing, so only the work done by run is measured.
+ *
+ * @see BenchmarkRunner for how benchmarks are timed.
+ * @author Krischan Woehrer
+ */
+public abstract class Benchmark {
+    private final String name;
+    private final int[] sizes;
+
+    /**
+     * Constructor method that creates a benchmark.
+     * @param name The name of the benchmark, shown in the results.
+     * @param sizes The problem sizes the benchmark is run at, usually a number of species.
+     */
+    protected Benchmark(String name, int... sizes) {
+        this.name = name;
+        this.sizes = sizes;
+    }
+
+    /**
+     * This method prepares the input of the benchmark for a problem size. It is not timed.
+     * @param size The problem size.
+     */
+    public abstract void setUp(int size);
+
+    /**
+     * This method runs the operation being measured once.
+     * @return A value computed by the operation, so that the work cannot be optimized away.
+     */
+    public abstract Object run();
+
+    /**
+     * This is an accessor method that returns the name of the benchmark.
+     * @return The name of the benchmark.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * This is an accessor method that returns the problem sizes of the benchmark.
+     * @return The problem sizes.
+     */
+    public int[] getSizes() {
+        return this.sizes;
+    }
+}
@@ -0,0 +1,150 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class times benchmarks the same way a JMH average time benchmark does. Each iteration
+ * calls the operation of a benchmark repeatedly until a minimum time has passed and records the
+ * average time per call. Warmup iterations are run first and discarded so the JIT compiler has
+ * compiled the code being measured, then the mean and standard deviation of the measured
+ * iterations are reported.
+ *
+ * Every value returned by an operation is folded into a volatile field, so the JIT compiler cannot
+ * remove the work as dead code.
+ *
+ * @author Krischan Woehrer
+ */
+public class BenchmarkRunner {
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationMillis = 500;
+    private String filter;
+    // Results of every operation are folded in here so they are never unused
+    private volatile int sink;
+
+    /**
+     * This is a mutator method that changes the number of warmup and measured iterations.
+     * @param warmupIterations The number of iterations run before measuring.
+     * @param measurementIterations The number of iterations measured.
+     */
+    public void setIterations(int warmupIterations, int measurementIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    /**
+     * This is a mutator method that changes the minimum time of an iteration.
+     * @param iterationMillis The minimum time of each iteration in milliseconds.
+     */
+    public void setIterationMillis(long iterationMillis) {
+        this.iterationMillis = iterationMillis;
+    }
+
+    /**
+     * This is a mutator method that only runs benchmarks whose name contains a piece of text.
+     * @param filter The text, or null to run every benchmark.
+     */
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * This method runs benchmarks at every one of their sizes and prints a line per size.
+     * @param benchmarks The benchmarks to run.
+     * @param output The stream the results are printed to.
+     */
+    public void runAll(List<Benchmark> benchmarks, PrintStream output) {
+        output.println(String.format(Locale.ROOT, "%-40s %8s %16s %14s %10s", "Benchmark", "Size",
+            "Mean (us/op)", "Error (us/op)", "Ops"));
+        for (Benchmark benchmark : benchmarks) {
+            if (this.filter != null && !benchmark.getName().contains(this.filter)) {
+                continue;
+            }
+            for (int size : benchmark.getSizes()) {
+                benchmark.setUp(size);
+                for (int i = 0; i < this.warmupIterations; i++) {
+                    this.runIteration(benchmark);
+                }
+                double[] nanosPerOperation = new double[this.measurementIterations];
+                long operations = 0;
+                for (int i = 0; i < this.measurementIterations; i++) {
+                    long[] iteration = this.runIteration(benchmark);
+                    nanosPerOperation[i] = (double) iteration[0] / iteration[1];
+                    operations += iteration[1];
+                }
+                output.println(String.format(Locale.ROOT, "%-40s %8d %16.3f %14.3f %10d",
+                    benchmark.getName(), size, mean(nanosPerOperation) / 1000.0,
+                    standardDeviation(nanosPerOperation) / 1000.0, operations));
+            }
+        }
+    }
+
+    /**
+     * This method calls the operation of a benchmark until the iteration time has passed.
+     * @param benchmark The benchmark to run.
+     * @return The elapsed time in nanoseconds and the number of operations.
+     */
+    private long[] runIteration(Benchmark benchmark) {
+        final long ITERATION_NANOS = this.iterationMillis * 1_000_000;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = benchmark.run();
+            this.sink += result == null ? 0 : result.hashCode();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        return new long[] {elapsed, operations};
+    }
+
+    /**
+     * This method calculates the mean of an array of values.
+     * @param values The values.
+     * @return The mean.
+     */
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * This method calculates the sample standard deviation of an array of values.
+     * @param values The values.
+     * @return The standard deviation, 0 if there are fewer than two values.
+     */
+    private static double standardDeviation(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double sumOfSquares = 0;
+        for (double value : values) {
+            sumOfSquares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sumOfSquares / (values.length - 1));
+    }
+}
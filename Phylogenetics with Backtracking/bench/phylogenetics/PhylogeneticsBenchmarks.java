@@ -0,0 +1,235 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class contains the benchmarks of the program: tree building with each clustering engine,
+ * the distance matrix, the distance between two species, every parsimony engine, drawing the tree
+ * and reloading a saved tree. Each benchmark is run on synthetic trait matrices at several sizes, where the size is the
+ * number of species unless the name of the benchmark says otherwise.
+ *
+ * The matrices are generated from a fixed seed, so every run measures the same input and results
+ * can be compared between versions of the program.
+ *
+ * Usage: PhylogeneticsBenchmarks [--filter text] [--warmup n] [--iterations n] [--time ms]
+ *
+ * @author Krischan Woehrer
+ */
+public class PhylogeneticsBenchmarks {
+    private static final long SEED = 470;
+    private static final int NUMBER_OF_TRAITS = 128;
+    // Chance of each trait changing when a new species is derived from an existing one
+    private static final double MUTATION_RATE = 0.1;
+    // The backtracking engines are exponential, so they are only run on small trees
+    private static final int[] BACKTRACKING_SIZES = {8, 12};
+    private static final int BACKTRACKING_TRAITS = 8;
+    private static final int[] TREE_SIZES = {64, 256, 1024};
+    private static final int[] RENDERING_SIZES = {16, 64, 128};
+
+    /**
+     * Main method that runs the benchmarks.
+     * @param args Options of the run, see the class comment.
+     */
+    public static void main(String[] args) {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        int warmupIterations = 3;
+        int measurementIterations = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter":
+                    runner.setFilter(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    measurementIterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--time":
+                    runner.setIterationMillis(Long.parseLong(args[++i]));
+                    break;
+                default:
+                    System.err.println("Unknown option \"" + args[i] + "\"");
+                    System.exit(1);
+            }
+        }
+        runner.setIterations(warmupIterations, measurementIterations);
+        runner.runAll(createBenchmarks(), System.out);
+    }
+
+    /**
+     * This method creates every benchmark.
+     * @return The benchmarks in the order they are run.
+     */
+    public static List<Benchmark> createBenchmarks() {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+
+        for (final ClusteringEngine clusteringEngine : ClusteringEngine.values()) {
+            benchmarks.add(new Benchmark("RootedTree.new " + clusteringEngine, TREE_SIZES) {
+                private Species[] species;
+
+                @Override
+                public void setUp(int size) {
+                    this.species = createSpecies(size, NUMBER_OF_TRAITS);
+                }
+
+                @Override
+                public Object run() {
+                    return new RootedTree(this.species, clusteringEngine).getRoot();
+                }
+            });
+        }
+
+        // RootedTree.setDistanceArray only stores the matrix built by DistanceMatrix.fromSpecies
+        benchmarks.add(new Benchmark("DistanceMatrix.fromSpecies", TREE_SIZES) {
+            private Species[] species;
+
+            @Override
+            public void setUp(int size) {
+                this.species = createSpecies(size, NUMBER_OF_TRAITS);
+            }
+
+            @Override
+            public Object run() {
+                return DistanceMatrix.fromSpecies(this.species, 1);
+            }
+        });
+
+        benchmarks.add(new Benchmark("Species.getDistanceValue (size = traits)", 64, 1024,
+            16384) {
+            private Species first;
+            private Species second;
+
+            @Override
+            public void setUp(int size) {
+                Species[] species = createSpecies(2, size);
+                this.first = species[0];
+                this.second = species[1];
+            }
+
+            @Override
+            public Object run() {
+                return this.first.getDistanceValue(this.second);
+            }
+        });
+
+        for (final ParsimonyEngine engine : ParsimonyEngine.values()) {
+            final boolean IS_EXHAUSTIVE = engine.requiresPossibleTraitStates();
+            benchmarks.add(new Benchmark("Parsimony " + engine,
+                IS_EXHAUSTIVE ? BACKTRACKING_SIZES : TREE_SIZES) {
+                private RootedTree tree;
+
+                @Override
+                public void setUp(int size) {
+                    this.tree = new RootedTree(
+                        createSpecies(size, IS_EXHAUSTIVE ? BACKTRACKING_TRAITS : NUMBER_OF_TRAITS));
+                    this.tree.setShowParsimony();
+                    if (IS_EXHAUSTIVE) {
+                        this.tree.generatePossibleAncestorTraits();
+                    }
+                }
+
+                @Override
+                public Object run() {
+                    return new Parsimony(this.tree).solve(engine).getParsimonyScore();
+                }
+            });
+        }
+
+        benchmarks.add(new Benchmark("RootedTree.toString", RENDERING_SIZES) {
+            private RootedTree tree;
+
+            @Override
+            public void setUp(int size) {
+                this.tree = new RootedTree(createSpecies(size, NUMBER_OF_TRAITS));
+            }
+
+            @Override
+            public Object run() {
+                return this.tree.toString();
+            }
+        });
+
+        // Compared with RootedTree.new, this is the time saved by reloading a tree instead of
+        // building it again
+        benchmarks.add(new Benchmark("BinaryTreeFile.load", TREE_SIZES) {
+            private String fileName;
+
+            @Override
+            public void setUp(int size) {
+                try {
+                    File file = File.createTempFile("benchmark", ".tree");
+                    file.deleteOnExit();
+                    this.fileName = file.getPath();
+                    BinaryTreeFile.write(new RootedTree(createSpecies(size, NUMBER_OF_TRAITS)),
+                        this.fileName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public Object run() {
+                try {
+                    return BinaryTreeFile.load(this.fileName).getRoot();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+
+        return benchmarks;
+    }
+
+    /**
+     * This method creates a synthetic trait matrix with a phylogenetic signal. The first species
+     * has random traits, and every species after it is a copy of a random earlier species with
+     * each trait changed at MUTATION_RATE, so closely related species share most of their traits.
+     * @param numberOfSpecies The number of species.
+     * @param numberOfTraits The number of traits per species.
+     * @return The species, named S1 to Sn.
+     */
+    public static Species[] createSpecies(int numberOfSpecies, int numberOfTraits) {
+        Random random = new Random(SEED ^ ((long) numberOfSpecies << 32) ^ numberOfTraits);
+        int[][] traits = new int[numberOfSpecies][numberOfTraits];
+        for (int j = 0; j < numberOfTraits; j++) {
+            traits[0][j] = random.nextInt(2);
+        }
+        for (int i = 1; i < numberOfSpecies; i++) {
+            int[] parentTraits = traits[random.nextInt(i)];
+            for (int j = 0; j < numberOfTraits; j++) {
+                traits[i][j] = random.nextDouble() < MUTATION_RATE
+                    ? 1 - parentTraits[j] : parentTraits[j];
+            }
+        }
+
+        Species[] species = new Species[numberOfSpecies];
+        for (int i = 0; i < numberOfSpecies; i++) {
+            species[i] = new Species("S" + (i + 1), traits[i], true);
+        }
+        return species;
+    }
+}
@@ -0,0 +1,193 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class converts input files to, and loads species from, a compact binary trait matrix file.
+ * Loading a binary matrix does not parse any text, the trait rows are memory mapped and copied
+ * directly into the trait bitsets of each species.
+ *
+ * Format (all values big-endian):
+ *      int     MAGIC ("PHYM")
+ *      int     VERSION
+ *      int     number of species
+ *      int     number of traits
+ *      name table, for every species:
+ *          int     length of the name in bytes
+ *          byte[]  name, UTF-8 encoded
+ *      zero padding so the rows start at a multiple of 8 bytes
+ *      rows, for every species:
+ *          long[]  trait bits, @see TraitBits for how traits are packed
+ *
+ * @author Krischan Woehrer
+ */
+public class BinaryMatrix {
+    public static final int MAGIC = 0x5048594D;
+    public static final int VERSION = 1;
+    // Largest number of bytes of rows mapped at once
+    private static final long MAXIMUM_MAPPED_ROW_BYTES = 1L << 30;
+
+    /**
+     * This method converts an input file in the text format read by Input.transposeFile to a
+     * binary matrix file.
+     * @param textFileName The name of the text input file.
+     * @param binaryFileName The name of the binary matrix file to create.
+     * @return True if the file was converted.
+     */
+    public static boolean convert(String textFileName, String binaryFileName) {
+        Species[] species = Input.transposeFile(textFileName);
+        if (species == null) {
+            return false;
+        }
+        try {
+            write(species, binaryFileName);
+        } catch (IOException e) {
+            System.out.println("Unable to write binary matrix to \"" + binaryFileName + "\".");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method writes an array of species to a binary matrix file.
+     * @param species The species to write. Every species must have the same number of traits.
+     * @param binaryFileName The name of the binary matrix file to create.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Species[] species, String binaryFileName) throws IOException {
+        final int NUMBER_OF_TRAITS = species.length == 0 ? 0 : species[0].getNumberOfTraits();
+        final int NUMBER_OF_WORDS = TraitBits.numberOfWords(NUMBER_OF_TRAITS);
+
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(binaryFileName), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(species.length);
+            output.writeInt(NUMBER_OF_TRAITS);
+            for (Species currentSpecies : species) {
+                byte[] name = currentSpecies.getName().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name.length);
+                output.write(name);
+            }
+            while (output.size() % Long.BYTES != 0) {
+                output.writeByte(0);
+            }
+            for (Species currentSpecies : species) {
+                long[] traitBits = currentSpecies.getTraitBits();
+                for (int i = 0; i < NUMBER_OF_WORDS; i++) {
+                    output.writeLong(traitBits[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method determines if a file is a binary matrix file by checking its first bytes.
+     * @param fileName The name of the file.
+     * @return True if the file starts with MAGIC.
+     */
+    public static boolean isBinaryMatrix(String fileName) {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            return file.length() >= Integer.BYTES && file.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method loads the species of a binary matrix file. The file is memory mapped, so only
+     * the names and trait bits are read and nothing is parsed.
+     * @param binaryFileName The name of the binary matrix file.
+     * @return An array of species, in the order they were written.
+     * @throws IOException If the file cannot be read, is not a binary matrix file, or is truncated
+     *      or corrupt.
+     */
+    public static Species[] load(String binaryFileName) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binaryFileName, "r");
+            FileChannel channel = file.getChannel()) {
+            final long FILE_SIZE = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(FILE_SIZE, Integer.MAX_VALUE));
+            if (FILE_SIZE < 4 * Integer.BYTES || header.getInt() != MAGIC) {
+                throw new IOException("\"" + binaryFileName + "\" is not a binary matrix file.");
+            }
+            if (header.getInt() != VERSION) {
+                throw new IOException("\"" + binaryFileName + "\" has an unsupported version.");
+            }
+            final int NUMBER_OF_SPECIES = header.getInt();
+            final int NUMBER_OF_TRAITS = header.getInt();
+            final int NUMBER_OF_WORDS = TraitBits.numberOfWords(NUMBER_OF_TRAITS);
+            // Every name takes at least the int of its length
+            if (NUMBER_OF_SPECIES < 0 || NUMBER_OF_TRAITS < 0
+                || (long) NUMBER_OF_SPECIES * Integer.BYTES > header.remaining()) {
+                throw new IOException("\"" + binaryFileName + "\" has an invalid header.");
+            }
+
+            String[] names = new String[NUMBER_OF_SPECIES];
+            for (int i = 0; i < NUMBER_OF_SPECIES; i++) {
+                // A truncated or corrupt name table would otherwise end in an unchecked exception
+                final int NAME_LENGTH =
+                    header.remaining() >= Integer.BYTES ? header.getInt() : -1;
+                if (NAME_LENGTH < 0 || NAME_LENGTH > header.remaining()) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid name table.");
+                }
+                byte[] name = new byte[NAME_LENGTH];
+                header.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            final long START_OF_ROWS =
+                (header.position() + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+            final long BYTES_PER_ROW = (long) NUMBER_OF_WORDS * Long.BYTES;
+            if (START_OF_ROWS + BYTES_PER_ROW * NUMBER_OF_SPECIES > FILE_SIZE) {
+                throw new IOException("\"" + binaryFileName + "\" is missing trait rows.");
+            }
+
+            // Rows are mapped in chunks so files larger than 2GB can still be loaded
+            final int ROWS_PER_CHUNK =
+                (int) Math.max(1, MAXIMUM_MAPPED_ROW_BYTES / Math.max(1, BYTES_PER_ROW));
+            Species[] species = new Species[NUMBER_OF_SPECIES];
+            for (int firstRow = 0; firstRow < NUMBER_OF_SPECIES; firstRow += ROWS_PER_CHUNK) {
+                int lastRow = (int) Math.min(NUMBER_OF_SPECIES, (long) firstRow + ROWS_PER_CHUNK);
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                    START_OF_ROWS + firstRow * BYTES_PER_ROW, (lastRow - firstRow) * BYTES_PER_ROW);
+                LongBuffer rows = chunk.asLongBuffer();
+                for (int i = firstRow; i < lastRow; i++) {
+                    long[] traitBits = new long[NUMBER_OF_WORDS];
+                    rows.get(traitBits);
+                    if (TraitBits.hasBitsPastTraits(traitBits, NUMBER_OF_TRAITS)) {
+                        throw new IOException("\"" + binaryFileName + "\" has an invalid row.");
+                    }
+                    species[i] = new Species(names[i], traitBits, NUMBER_OF_TRAITS);
+                }
+            }
+            return species;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * This class saves a rooted tree to, and restores it from, a compact binary tree file, so the same
+ * tree can be drawn or scored again without rebuilding it from its trait matrix. Loading a tree
+ * file does not run UPGMA or any parsimony search, the nodes are linked back together in a single
+ * pass over the file.
+ *
+ * Nodes are numbered in postorder (left descendant, right descendant, ancestor), so every node
+ * comes after its descendants, the first descendant of a node is its left descendant and the root
+ * is the last node. The names of ancestor nodes are not stored, as they are the names of their
+ * descendants joined by a space.
+ *
+ * Format (all values big-endian), where n is the number of nodes:
+ *      int     MAGIC ("PHYT")
+ *      int     VERSION
+ *      int     number of initial species
+ *      int     number of traits
+ *      int     flags, SHOW_PARSIMONY if parsimony is shown on the tree
+ *      int     parsimony score
+ *      int[n]  parent of every node, -1 for the root
+ *      int[n]  height of every node
+ *      int[]   node of every initial species, in the order of RootedTree.getInitialSpecies
+ *      name table, for every initial species in the same order:
+ *          int     length of the name in bytes
+ *          byte[]  name, UTF-8 encoded
+ *      byte[n] traits of every node, HAS_TRAITS and HAS_UNKNOWN_TRAITS
+ *      zero padding so the traits start at a multiple of 8 bytes
+ *      traits, for every node with HAS_TRAITS:
+ *          long[]  present trait bits, @see TraitBits for how traits are packed
+ *          long[]  unknown trait bits, only if the node has HAS_UNKNOWN_TRAITS
+ *
+ * @author Krischan Woehrer
+ */
+public class BinaryTreeFile {
+    public static final int MAGIC = 0x50485954;
+    public static final int VERSION = 1;
+    public static final int SHOW_PARSIMONY = 1;
+    public static final byte HAS_TRAITS = 1;
+    public static final byte HAS_UNKNOWN_TRAITS = 2;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    /**
+     * This method writes a tree, including the traits of its ancestor nodes and its parsimony
+     * score, to a binary tree file.
+     * @param tree The tree to write.
+     * @param binaryFileName The name of the binary tree file to create.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(RootedTree tree, String binaryFileName) throws IOException {
+        ArrayList<Species> initialSpecies = tree.getInitialSpecies();
+        final int NUMBER_OF_TRAITS =
+            initialSpecies.isEmpty() ? 0 : initialSpecies.get(0).getNumberOfTraits();
+        final int NUMBER_OF_WORDS = TraitBits.numberOfWords(NUMBER_OF_TRAITS);
+        Species[] nodes = postorder(tree.getRoot());
+        IdentityHashMap<Species, Integer> nodeNumbers = new IdentityHashMap<Species, Integer>();
+        for (int i = 0; i < nodes.length; i++) {
+            nodeNumbers.put(nodes[i], i);
+        }
+
+        try (DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(binaryFileName), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(initialSpecies.size());
+            output.writeInt(NUMBER_OF_TRAITS);
+            output.writeInt(tree.getShowParsimony() ? SHOW_PARSIMONY : 0);
+            output.writeInt(tree.getParsimonyScore());
+            for (Species node : nodes) {
+                Species ancestor = node.getAncestor();
+                output.writeInt(ancestor == null ? -1 : nodeNumbers.get(ancestor));
+            }
+            for (Species node : nodes) {
+                output.writeInt(node.getHeight());
+            }
+            for (Species species : initialSpecies) {
+                output.writeInt(nodeNumbers.get(species));
+            }
+            for (Species species : initialSpecies) {
+                byte[] name = species.getName().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name.length);
+                output.write(name);
+            }
+            for (Species node : nodes) {
+                int traitFlags = 0;
+                if (node.getTraitBits() != null) {
+                    traitFlags = node.getUnknownTraitBits() != null
+                        ? HAS_TRAITS | HAS_UNKNOWN_TRAITS : HAS_TRAITS;
+                }
+                output.writeByte(traitFlags);
+            }
+            while (output.size() % Long.BYTES != 0) {
+                output.writeByte(0);
+            }
+            for (Species node : nodes) {
+                if (node.getTraitBits() != null) {
+                    writeWords(output, node.getTraitBits(), NUMBER_OF_WORDS);
+                    if (node.getUnknownTraitBits() != null) {
+                        writeWords(output, node.getUnknownTraitBits(), NUMBER_OF_WORDS);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method determines if a file is a binary tree file by checking its first bytes.
+     * @param fileName The name of the file.
+     * @return True if the file starts with MAGIC.
+     */
+    public static boolean isBinaryTreeFile(String fileName) {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            return file.length() >= Integer.BYTES && file.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method restores the tree of a binary tree file. The file is memory mapped and every
+     * node is linked to its descendants in one pass, as descendants are stored before their
+     * ancestor. No distances are calculated and no parsimony search is run.
+     * @param binaryFileName The name of the binary tree file.
+     * @return The tree, with the traits of its ancestor nodes and the parsimony score it was
+     *      written with.
+     * @throws IOException If the file cannot be read, is not a binary tree file, or does not
+     *      describe a valid tree.
+     */
+    public static RootedTree load(String binaryFileName) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(binaryFileName, "r");
+            FileChannel channel = file.getChannel()) {
+            final long FILE_SIZE = channel.size();
+            if (FILE_SIZE > Integer.MAX_VALUE) {
+                throw new IOException("\"" + binaryFileName + "\" is too large to load.");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+            if (FILE_SIZE < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("\"" + binaryFileName + "\" is not a binary tree file.");
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("\"" + binaryFileName + "\" has an unsupported version.");
+            }
+            final int NUMBER_OF_INITIAL_SPECIES = buffer.getInt();
+            final int NUMBER_OF_TRAITS = buffer.getInt();
+            final int FLAGS = buffer.getInt();
+            final int PARSIMONY_SCORE = buffer.getInt();
+            // The parents, heights and species nodes are 5 * species - 2 ints
+            if (NUMBER_OF_INITIAL_SPECIES < 1 || NUMBER_OF_TRAITS < 0 || HEADER_BYTES
+                + (5L * NUMBER_OF_INITIAL_SPECIES - 2) * Integer.BYTES > FILE_SIZE) {
+                throw new IOException("\"" + binaryFileName + "\" has an invalid header.");
+            }
+            final int NUMBER_OF_NODES = 2 * NUMBER_OF_INITIAL_SPECIES - 1;
+
+            int[] parents = new int[NUMBER_OF_NODES];
+            int[] heights = new int[NUMBER_OF_NODES];
+            int[] initialSpeciesNodes = new int[NUMBER_OF_INITIAL_SPECIES];
+            readInts(buffer, parents);
+            readInts(buffer, heights);
+            readInts(buffer, initialSpeciesNodes);
+
+            Species[] nodes = new Species[NUMBER_OF_NODES];
+            Species[] initialSpecies = new Species[NUMBER_OF_INITIAL_SPECIES];
+            for (int i = 0; i < NUMBER_OF_INITIAL_SPECIES; i++) {
+                int node = initialSpeciesNodes[i];
+                // A truncated or corrupt name table would otherwise end in an unchecked exception
+                final int NAME_LENGTH =
+                    buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+                if (NAME_LENGTH < 0 || NAME_LENGTH > buffer.remaining()) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid name table.");
+                }
+                byte[] name = new byte[NAME_LENGTH];
+                buffer.get(name);
+                if (node < 0 || node >= NUMBER_OF_NODES || nodes[node] != null) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid topology.");
+                }
+                nodes[node] = new Species(new String(name, StandardCharsets.UTF_8), (long[]) null,
+                    NUMBER_OF_TRAITS);
+                initialSpecies[i] = nodes[node];
+            }
+            if (buffer.remaining() < NUMBER_OF_NODES) {
+                throw new IOException("\"" + binaryFileName + "\" is missing trait flags.");
+            }
+            byte[] traitFlags = new byte[NUMBER_OF_NODES];
+            buffer.get(traitFlags);
+            buffer.position(Math.min(buffer.limit(),
+                (buffer.position() + Long.BYTES - 1) / Long.BYTES * Long.BYTES));
+            LongBuffer words = buffer.slice().asLongBuffer();
+
+            // The descendants of every node are found before the node itself is reached
+            Species[] leftDescendants = new Species[NUMBER_OF_NODES];
+            Species[] rightDescendants = new Species[NUMBER_OF_NODES];
+            for (int i = 0; i < NUMBER_OF_NODES; i++) {
+                Species node = nodes[i];
+                boolean isInitialSpecies = node != null;
+                if (isInitialSpecies == (leftDescendants[i] != null)
+                    || (!isInitialSpecies && rightDescendants[i] == null)) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid topology.");
+                }
+                // Initial species always have traits, and so does every node of a tree that shows
+                // parsimony, otherwise drawing the tree would fail long after it was loaded
+                final boolean HAS_NODE_TRAITS = (traitFlags[i] & HAS_TRAITS) != 0;
+                if ((traitFlags[i] & ~(HAS_TRAITS | HAS_UNKNOWN_TRAITS)) != 0 || (!HAS_NODE_TRAITS
+                    && (traitFlags[i] != 0 || isInitialSpecies || (FLAGS & SHOW_PARSIMONY) != 0))) {
+                    throw new IOException("\"" + binaryFileName + "\" has invalid trait flags.");
+                }
+                long[] traitBits = null;
+                long[] unknownTraitBits = null;
+                if (HAS_NODE_TRAITS) {
+                    traitBits = readWords(words, NUMBER_OF_TRAITS, binaryFileName);
+                    if ((traitFlags[i] & HAS_UNKNOWN_TRAITS) != 0) {
+                        unknownTraitBits = readWords(words, NUMBER_OF_TRAITS, binaryFileName);
+                    }
+                }
+
+                if (!isInitialSpecies) {
+                    // Ancestor nodes only have a number of traits once their traits are known
+                    final String ANCESTOR_NAME =
+                        leftDescendants[i].getName() + " " + rightDescendants[i].getName();
+                    node = traitBits != null
+                        ? new Species(ANCESTOR_NAME, traitBits, NUMBER_OF_TRAITS) : new Species();
+                    node.setName(ANCESTOR_NAME);
+                    node.setAncestorStatus();
+                    node.setDescendantSpecies(leftDescendants[i], rightDescendants[i]);
+                    nodes[i] = node;
+                }
+                if (traitBits != null) {
+                    node.setTraitBits(traitBits, unknownTraitBits);
+                }
+                if (node.getHeight() != heights[i]) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid height.");
+                }
+
+                // Every ancestor has to end up with two descendants, so a second node without a
+                // parent is found when the descendants of its missing parent are checked
+                int parent = parents[i];
+                if (parent == -1) {
+                    continue;
+                } else if (parent <= i || parent >= NUMBER_OF_NODES
+                    || rightDescendants[parent] != null) {
+                    throw new IOException("\"" + binaryFileName + "\" has an invalid topology.");
+                } else if (leftDescendants[parent] == null) {
+                    leftDescendants[parent] = node;
+                } else {
+                    rightDescendants[parent] = node;
+                }
+            }
+            if (parents[NUMBER_OF_NODES - 1] != -1) {
+                throw new IOException("\"" + binaryFileName + "\" has an invalid topology.");
+            }
+
+            RootedTree tree = new RootedTree(initialSpecies, nodes[NUMBER_OF_NODES - 1]);
+            if ((FLAGS & SHOW_PARSIMONY) != 0) {
+                // The ancestor traits are already known, so no possible trait states are generated
+                tree.setShowParsimony();
+            }
+            tree.setParsimonyScore(PARSIMONY_SCORE);
+            return tree;
+        }
+    }
+
+    /**
+     * This method lists the nodes of a tree in postorder without recursion, so deep trees do not
+     * overflow the stack.
+     * @param root The root of the tree.
+     * @return Every node of the tree, each after its left and then its right descendant.
+     */
+    private static Species[] postorder(Species root) {
+        ArrayList<Species> reversedPostorder = new ArrayList<Species>();
+        ArrayDeque<Species> stack = new ArrayDeque<Species>();
+        stack.push(root);
+        // Visiting ancestor, right, left and reversing the result gives left, right, ancestor
+        while (!stack.isEmpty()) {
+            Species current = stack.pop();
+            reversedPostorder.add(current);
+            if (current.getHeight() != 1) {
+                stack.push(current.getDescendants()[0]);
+                stack.push(current.getDescendants()[1]);
+            }
+        }
+        Species[] nodes = new Species[reversedPostorder.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = reversedPostorder.get(nodes.length - 1 - i);
+        }
+        return nodes;
+    }
+
+    /**
+     * This method writes the first words of a packed bitset.
+     * @param output The stream the words are written to.
+     * @param bits The packed bitset.
+     * @param numberOfWords The number of words to write.
+     * @throws IOException If the stream cannot be written to.
+     */
+    private static void writeWords(DataOutputStream output, long[] bits, int numberOfWords)
+        throws IOException {
+        for (int i = 0; i < numberOfWords; i++) {
+            output.writeLong(bits[i]);
+        }
+    }
+
+    /**
+     * This method reads an array of ints from a buffer.
+     * @param buffer The buffer, its position is moved past the ints.
+     * @param values The array the ints are read into.
+     */
+    private static void readInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    /**
+     * This method reads a packed bitset from the traits of a binary tree file.
+     * @param words The traits of the file.
+     * @param numberOfTraits The number of traits stored in the bitset.
+     * @param binaryFileName The name of the file, for the error message.
+     * @return The bitset.
+     * @throws IOException If the file ends before the bitset, or the bitset has bits set past
+     *      the last trait.
+     */
+    private static long[] readWords(LongBuffer words, int numberOfTraits, String binaryFileName)
+        throws IOException {
+        final int NUMBER_OF_WORDS = TraitBits.numberOfWords(numberOfTraits);
+        if (words.remaining() < NUMBER_OF_WORDS) {
+            throw new IOException("\"" + binaryFileName + "\" is missing traits.");
+        }
+        long[] bits = new long[NUMBER_OF_WORDS];
+        words.get(bits);
+        // Counting the traits of a bitset with these bits set would fail long after loading
+        if (TraitBits.hasBitsPastTraits(bits, numberOfTraits)) {
+            throw new IOException("\"" + binaryFileName + "\" has invalid traits.");
+        }
+        return bits;
+    }
+}
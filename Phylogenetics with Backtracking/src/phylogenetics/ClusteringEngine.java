@@ -0,0 +1,48 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This enum lists the ways a rooted tree can find the two closest clusters before each merge.
+ * Every engine merges the same pair of clusters, including when several pairs are tied, so they
+ * all build the same tree.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public enum ClusteringEngine {
+    /**
+     * Scans the whole upper triangle of the distance matrix before every merge. Runs in O(n^3).
+     */
+    FULL_SCAN,
+
+    /**
+     * Keeps the closest cluster of every row and only rescans the rows affected by a merge.
+     * Runs in O(n^2) for most inputs, but O(n^3) when many rows share a nearest cluster.
+     * @see NearestNeighborCache
+     */
+    NEAREST_NEIGHBOR_CACHE,
+
+    /**
+     * Keeps a min-heap of the distances of every row and only moves the entries changed by a
+     * merge. Runs in O(n^2 log n) for every input.
+     * @see DistanceHeaps
+     */
+    DISTANCE_HEAPS
+}
@@ -0,0 +1,134 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class determines the trait states of the ancestor nodes of a rooted tree by solving every
+ * trait (column of the trait matrix) independently. The parsimony score of a tree is the sum of the
+ * changes of each trait, so the optimal value of one trait never depends on the value of another.
+ * Ranges of traits are solved in parallel on a ForkJoinPool and the results are then assembled into
+ * the trait arrays of the ancestor nodes.
+ *
+ * @see FitchParsimony.solveTrait for how a single trait is solved.
+ * @author Krischan Woehrer
+ */
+public class ColumnParsimony {
+    // Number of traits solved by a single task before it stops splitting its range
+    private static final int TRAITS_PER_TASK = 64;
+
+    /**
+     * This method takes a rooted tree and sets the trait states of every ancestor node to the
+     * states that result in maximum parsimony of the tree. Traits are solved on the common
+     * ForkJoinPool.
+     * @param tree A rooted tree containing species and their ancestors.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree) {
+        return findMostParsimoniousTree(tree, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This method takes a rooted tree and sets the trait states of every ancestor node to the
+     * states that result in maximum parsimony of the tree.
+     * @see SharedPools for which pool is used
+     * @param tree A rooted tree containing species and their ancestors.
+     * @param parallelism The number of threads used to solve traits.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree, int parallelism) {
+        return findMostParsimoniousTree(tree, SharedPools.withParallelism(parallelism));
+    }
+
+    /**
+     * This method takes a rooted tree and sets the trait states of every ancestor node to the
+     * states that result in maximum parsimony of the tree. Trees with at most TRAITS_PER_TASK
+     * traits are solved on this thread, as a single task would gain nothing from the pool.
+     * @param tree A rooted tree containing species and their ancestors.
+     * @param pool The pool that traits are solved on.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree, ForkJoinPool pool) {
+        TreeIndex index = new TreeIndex(tree.getRoot());
+        final int NUMBER_OF_TRAITS = tree.getInitialSpecies().get(0).getNumberOfTraits();
+        int[][] traitMatrix = FitchParsimony.createTraitMatrix(index, NUMBER_OF_TRAITS);
+
+        TraitRangeTask allTraits = new TraitRangeTask(index, traitMatrix, 0, NUMBER_OF_TRAITS);
+        int parsimonyScore = NUMBER_OF_TRAITS <= TRAITS_PER_TASK
+            ? allTraits.invoke() : pool.invoke(allTraits);
+        FitchParsimony.applyTraitMatrix(index, traitMatrix);
+
+        return parsimonyScore;
+    }
+
+    /**
+     * A task that solves a range of traits. Ranges larger than TRAITS_PER_TASK are split in half
+     * and the halves are solved as separate tasks.
+     */
+    private static class TraitRangeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final TreeIndex index;
+        private final int[][] traitMatrix;
+        private final int firstTrait;
+        private final int lastTrait;
+
+        /**
+         * Constructor method that creates a task for the traits from firstTrait (inclusive) to
+         * lastTrait (exclusive).
+         * @param index The indexed tree.
+         * @param traitMatrix The trait matrix shared by every task.
+         * @param firstTrait The first trait of the range.
+         * @param lastTrait The trait after the last trait of the range.
+         */
+        TraitRangeTask(TreeIndex index, int[][] traitMatrix, int firstTrait, int lastTrait) {
+            this.index = index;
+            this.traitMatrix = traitMatrix;
+            this.firstTrait = firstTrait;
+            this.lastTrait = lastTrait;
+        }
+
+        /**
+         * Solves the range of traits.
+         * @return The sum of the minimum number of changes of every trait in the range.
+         */
+        @Override
+        protected Integer compute() {
+            if (this.lastTrait - this.firstTrait <= TRAITS_PER_TASK) {
+                byte[] traitValueSets = new byte[this.index.size()];
+                int numberOfChanges = 0;
+                for (int i = this.firstTrait; i < this.lastTrait; i++) {
+                    numberOfChanges +=
+                        FitchParsimony.solveTrait(this.index, this.traitMatrix, i, traitValueSets);
+                }
+                return numberOfChanges;
+            }
+
+            int middleTrait = (this.firstTrait + this.lastTrait) >>> 1;
+            TraitRangeTask leftHalf =
+                new TraitRangeTask(this.index, this.traitMatrix, this.firstTrait, middleTrait);
+            TraitRangeTask rightHalf =
+                new TraitRangeTask(this.index, this.traitMatrix, middleTrait, this.lastTrait);
+            leftHalf.fork();
+            int rightChanges = rightHalf.compute();
+            return leftHalf.join() + rightChanges;
+        }
+    }
+}
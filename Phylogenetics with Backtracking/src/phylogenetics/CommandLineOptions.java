@@ -0,0 +1,360 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * This class contains the options of a non-interactive (batch) run of the command line interface.
+ * Options are parsed from flags so the program can be run by job schedulers and pipelines without
+ * answering any prompts.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public class CommandLineOptions {
+    public static final String USAGE = "Proper usage: MainMethod fileContainingTraitValues.txt\n"
+        + "   or: MainMethod [options]\n"
+        + "Options:\n"
+        + "  --input <file>          Input file (text, binary matrix or binary tree format)\n"
+        + "  --output <name>         Output file name without the extension\n"
+        + "  --batch <dir|glob>      Process every file in a directory, or every file matching\n"
+        + "                          a glob such as data/*.txt, in one run\n"
+        + "  --output-dir <dir>      Directory for batch output files (default: current directory)\n"
+        + "  --parsimony             Determine ancestor trait states and the parsimony score\n"
+        + "  --no-parsimony          Only build the tree (default)\n"
+        + "  --engine <name>         Parsimony engine: " + namesOf(ParsimonyEngine.values()) + "\n"
+        + "  --clustering <name>     Clustering engine: " + namesOf(ClusteringEngine.values()) + "\n"
+        + "  --step-costs <file>     Gain and loss costs of each trait for the SANKOFF engine\n"
+        + "  --linkage <name>        Linkage: " + namesOf(Linkage.values()) + "\n"
+        + "  --format <name>         Output format: " + namesOf(TreeFormat.values())
+        + " (default: ASCII)\n"
+        + "  --branch-lengths        Write branch lengths in NEWICK and NEXUS output\n"
+        + "  --ancestor-traits       Write ancestor traits as comments in NEWICK and NEXUS output\n"
+        + "  --threads <n>           Number of threads (default: number of processors)\n"
+        + "  --convert <file>        Convert the input file to a binary matrix file and exit\n"
+        + "  --save-tree <file>      Save the tree to a binary tree file, which can be given to\n"
+        + "                          --input to write or score it again without rebuilding it";
+
+    private String inputFileName;
+    private String outputName;
+    private String batchPattern;
+    private String outputDirectory = ".";
+    private String convertFileName;
+    private String saveTreeFileName;
+    private boolean showParsimony = false;
+    private ParsimonyEngine parsimonyEngine = ParsimonyEngine.PARALLEL_COLUMNS;
+    private String stepCostsFileName;
+    private ClusteringEngine clusteringEngine = ClusteringEngine.DISTANCE_HEAPS;
+    private Linkage linkage = Linkage.WPGMA;
+    private TreeFormat treeFormat = TreeFormat.ASCII;
+    private boolean includeBranchLengths = false;
+    private boolean includeAncestorTraits = false;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * This method determines if the command line arguments ask for a non-interactive run.
+     * @param args The command line arguments.
+     * @return True if any argument is a flag.
+     */
+    public static boolean isBatchRun(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method parses the command line arguments of a non-interactive run.
+     * @param args The command line arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If a flag is unknown, is missing its value, no input was
+     *      specified, or flags that cannot be combined were given.
+     */
+    public static CommandLineOptions parse(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        for (int i = 0; i < args.length; i++) {
+            String flag = args[i];
+            switch (flag) {
+                case "--input":
+                    options.inputFileName = valueOf(args, ++i, flag);
+                    break;
+                case "--output":
+                    options.outputName = valueOf(args, ++i, flag);
+                    break;
+                case "--batch":
+                    options.batchPattern = valueOf(args, ++i, flag);
+                    break;
+                case "--output-dir":
+                    options.outputDirectory = valueOf(args, ++i, flag);
+                    break;
+                case "--convert":
+                    options.convertFileName = valueOf(args, ++i, flag);
+                    break;
+                case "--save-tree":
+                    options.saveTreeFileName = valueOf(args, ++i, flag);
+                    break;
+                case "--parsimony":
+                    options.showParsimony = true;
+                    break;
+                case "--no-parsimony":
+                    options.showParsimony = false;
+                    break;
+                case "--engine":
+                    options.parsimonyEngine =
+                        ParsimonyEngine.valueOf(valueOf(args, ++i, flag).toUpperCase());
+                    break;
+                case "--step-costs":
+                    options.stepCostsFileName = valueOf(args, ++i, flag);
+                    break;
+                case "--clustering":
+                    options.clusteringEngine =
+                        ClusteringEngine.valueOf(valueOf(args, ++i, flag).toUpperCase());
+                    break;
+                case "--linkage":
+                    options.linkage = Linkage.valueOf(valueOf(args, ++i, flag).toUpperCase());
+                    break;
+                case "--format":
+                    options.treeFormat = TreeFormat.valueOf(valueOf(args, ++i, flag).toUpperCase());
+                    break;
+                case "--branch-lengths":
+                    options.includeBranchLengths = true;
+                    break;
+                case "--ancestor-traits":
+                    options.includeAncestorTraits = true;
+                    break;
+                case "--threads":
+                    options.threads = Integer.parseInt(valueOf(args, ++i, flag));
+                    if (options.threads < 1) {
+                        throw new IllegalArgumentException("--threads must be at least 1");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option \"" + flag + "\"");
+            }
+        }
+        if ((options.inputFileName == null) == (options.batchPattern == null)) {
+            throw new IllegalArgumentException("Specify exactly one of --input or --batch");
+        }
+        if (options.convertFileName != null && options.inputFileName == null) {
+            throw new IllegalArgumentException("--convert requires --input");
+        }
+        if (options.outputName != null && options.batchPattern != null) {
+            throw new IllegalArgumentException(
+                "--output cannot be used with --batch, use --output-dir instead");
+        }
+        if (options.saveTreeFileName != null && options.inputFileName == null) {
+            throw new IllegalArgumentException("--save-tree requires --input");
+        }
+        if ((options.includeBranchLengths || options.includeAncestorTraits)
+            && options.treeFormat == TreeFormat.ASCII) {
+            throw new IllegalArgumentException(
+                "--branch-lengths and --ancestor-traits require --format NEWICK or NEXUS");
+        }
+        if (options.stepCostsFileName != null
+            && options.parsimonyEngine != ParsimonyEngine.SANKOFF) {
+            throw new IllegalArgumentException("--step-costs requires --engine SANKOFF");
+        }
+        return options;
+    }
+
+    /**
+     * This method returns the value following a flag.
+     * @param args The command line arguments.
+     * @param index The index of the value.
+     * @param flag The flag the value belongs to.
+     * @return The value.
+     */
+    private static String valueOf(String[] args, int index, String flag) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(flag + " requires a value");
+        }
+        return args[index];
+    }
+
+    /**
+     * This method joins the names of enum constants with '|'.
+     * @param values The enum constants.
+     * @return The joined names.
+     */
+    private static String namesOf(Enum<?>[] values) {
+        StringBuilder names = new StringBuilder();
+        for (Enum<?> value : values) {
+            if (names.length() > 0) {
+                names.append('|');
+            }
+            names.append(value.name());
+        }
+        return names.toString();
+    }
+
+    /**
+     * This method determines the input files to process. A single --input file is returned as is.
+     * A --batch directory returns every file in it, and a --batch glob returns every file in its
+     * directory whose name matches it. Files are returned in alphabetical order.
+     * @return The names of the input files.
+     * @throws IOException If the batch directory cannot be read.
+     */
+    public ArrayList<String> getInputFileNames() throws IOException {
+        ArrayList<String> inputFileNames = new ArrayList<String>();
+        if (this.inputFileName != null) {
+            inputFileNames.add(this.inputFileName);
+            return inputFileNames;
+        }
+
+        Path batchPath = Paths.get(this.batchPattern);
+        DirectoryStream<Path> files;
+        if (Files.isDirectory(batchPath)) {
+            files = Files.newDirectoryStream(batchPath);
+        } else {
+            Path directory = batchPath.getParent() == null ? Paths.get(".") : batchPath.getParent();
+            files = Files.newDirectoryStream(directory, batchPath.getFileName().toString());
+        }
+        try {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    inputFileNames.add(file.toString());
+                }
+            }
+        } finally {
+            files.close();
+        }
+        Collections.sort(inputFileNames);
+        return inputFileNames;
+    }
+
+    /**
+     * This method determines the output file name (without extension) for an input file.
+     * --output is used for a single input file, otherwise the input file name without its
+     * extension is used, placed in the output directory.
+     * @param inputFile The name of the input file.
+     * @return The output file name without its extension.
+     */
+    public String getOutputName(String inputFile) {
+        if (this.outputName != null) {
+            return this.outputName;
+        }
+        String name = new File(inputFile).getName();
+        int extension = name.lastIndexOf('.');
+        if (extension > 0) {
+            name = name.substring(0, extension);
+        }
+        return new File(this.outputDirectory, name + "_tree").getPath();
+    }
+
+    /**
+     * This is an accessor method that returns the name of the binary matrix file to convert to.
+     * @return The file name, or null if no conversion was requested.
+     */
+    public String getConvertFileName() {
+        return this.convertFileName;
+    }
+
+    /**
+     * This is an accessor method that returns the name of the binary tree file to save the tree
+     * to.
+     * @see BinaryTreeFile for the format of the file.
+     * @return The file name, or null if the tree should not be saved.
+     */
+    public String getSaveTreeFileName() {
+        return this.saveTreeFileName;
+    }
+
+    /**
+     * This is an accessor method that returns the name of the single input file.
+     * @return The input file name, or null for a batch run.
+     */
+    public String getInputFileName() {
+        return this.inputFileName;
+    }
+
+    /**
+     * This is an accessor method that returns if parsimony should be shown.
+     * @return True if ancestor trait states and the parsimony score should be determined.
+     */
+    public boolean getShowParsimony() {
+        return this.showParsimony;
+    }
+
+    /**
+     * This is an accessor method that returns the parsimony engine.
+     * @return The parsimony engine.
+     */
+    public ParsimonyEngine getParsimonyEngine() {
+        return this.parsimonyEngine;
+    }
+
+    /**
+     * This is an accessor method that returns the name of the step cost file.
+     * @see StepCosts.readFromFile for the format of the file.
+     * @return The file name, or null if every change costs 1.
+     */
+    public String getStepCostsFileName() {
+        return this.stepCostsFileName;
+    }
+
+    /**
+     * This is an accessor method that returns the clustering engine.
+     * @return The clustering engine.
+     */
+    public ClusteringEngine getClusteringEngine() {
+        return this.clusteringEngine;
+    }
+
+    /**
+     * This is an accessor method that returns the linkage.
+     * @return The linkage.
+     */
+    public Linkage getLinkage() {
+        return this.linkage;
+    }
+
+    /**
+     * This is an accessor method that returns the format the tree is written in.
+     * @return The output format.
+     */
+    public TreeFormat getTreeFormat() {
+        return this.treeFormat;
+    }
+
+    /**
+     * This method creates the writer of NEWICK and NEXUS output with the requested options.
+     * @return The writer.
+     */
+    public NewickWriter createNewickWriter() {
+        return new NewickWriter(this.includeBranchLengths, this.includeAncestorTraits);
+    }
+
+    /**
+     * This is an accessor method that returns the number of threads.
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+}
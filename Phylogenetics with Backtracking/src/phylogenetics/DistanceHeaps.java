@@ -0,0 +1,205 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Day, W. H. E. and Edelsbrunner, H. (1984). Efficient algorithms for agglomerative
+// hierarchical clustering methods. Journal of Classification 1 (a priority queue per row)
+
+/**
+ * This class keeps, for every active row of a distance matrix, a binary min-heap of the rows after
+ * it in the upper triangle ordered by their distance. The closest pair of clusters is found by
+ * looking at the top of every heap, in O(n) time per merge.
+ *
+ * Ties are broken the same way as scanning the upper triangle row by row: the smallest row wins,
+ * then the smallest column, so each heap is ordered by distance and then by column. Merging two
+ * clusters only changes the distances to the merged cluster, so every row before it moves a single
+ * entry in its heap and removes the removed row, in O(log n) time. Building the whole tree takes
+ * O(n^2 log n) time in the worst case, for every linkage.
+ *
+ * The heaps and the positions of every row in them take two ints per cell of the upper triangle,
+ * about as much memory as the distance matrix itself.
+ *
+ * @author Krischan Woehrer
+ */
+public class DistanceHeaps {
+    private final DistanceMatrix distanceMatrix;
+    // For every row, a binary min-heap of the rows after it
+    private final int[][] heaps;
+    private final int[] heapSizes;
+    // For every row, the position in its heap of each row after it, indexed by column - row - 1
+    private final int[][] heapPositions;
+
+    /**
+     * Constructor method that builds the heap of every active row of a distance matrix.
+     * @param distanceMatrix The distance matrix. It should not have been merged yet.
+     */
+    public DistanceHeaps(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        final int SIZE = distanceMatrix.size();
+        this.heaps = new int[SIZE][];
+        this.heapSizes = new int[SIZE];
+        this.heapPositions = new int[SIZE][];
+        for (int row = 0; row < SIZE; row++) {
+            this.heaps[row] = new int[SIZE - row - 1];
+            this.heapPositions[row] = new int[SIZE - row - 1];
+        }
+        for (int i = 0; i < distanceMatrix.getNumberOfActiveRows(); i++) {
+            this.rebuildHeap(i);
+        }
+    }
+
+    /**
+     * This method finds the two closest clusters.
+     * @return An array containing the rows of the two closest clusters. The first row is always
+     *      smaller than the second.
+     */
+    public int[] findSmallestDistance() {
+        int[] twoClosestClusters = new int[2];
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.distanceMatrix.getNumberOfActiveRows() - 1; i++) {
+            int row = this.distanceMatrix.getActiveRow(i);
+            int closestRow = this.heaps[row][0];
+            double distance = this.distanceMatrix.get(row, closestRow);
+            if (minimumDistance > distance) {
+                minimumDistance = distance;
+                twoClosestClusters[0] = row;
+                twoClosestClusters[1] = closestRow;
+            }
+        }
+        return twoClosestClusters;
+    }
+
+    /**
+     * This method updates the heaps after two clusters have been merged. The merged cluster must be
+     * stored in secondRow and firstRow must already be removed from the distance matrix.
+     * @param firstRow The removed row.
+     * @param secondRow The row of the merged cluster.
+     */
+    public void merged(int firstRow, int secondRow) {
+        final int POSITION_OF_SECOND_ROW = this.distanceMatrix.getActivePosition(secondRow);
+        // Rows after the merged cluster only hold rows after themselves, which did not change
+        for (int i = 0; i < POSITION_OF_SECOND_ROW; i++) {
+            int row = this.distanceMatrix.getActiveRow(i);
+            if (row < firstRow) {
+                this.remove(row, this.heapPositions[row][firstRow - row - 1]);
+            }
+            int position = this.heapPositions[row][secondRow - row - 1];
+            this.siftDown(row, this.siftUp(row, position));
+        }
+        this.heapSizes[firstRow] = 0;
+        this.rebuildHeap(POSITION_OF_SECOND_ROW);
+    }
+
+    /**
+     * This method rebuilds the heap of a row from every active row after it.
+     * @param position The position of the row among the active rows.
+     */
+    private void rebuildHeap(int position) {
+        final int ROW = this.distanceMatrix.getActiveRow(position);
+        int size = 0;
+        for (int i = position + 1; i < this.distanceMatrix.getNumberOfActiveRows(); i++) {
+            int column = this.distanceMatrix.getActiveRow(i);
+            this.heaps[ROW][size] = column;
+            this.heapPositions[ROW][column - ROW - 1] = size;
+            size++;
+        }
+        this.heapSizes[ROW] = size;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            this.siftDown(ROW, i);
+        }
+    }
+
+    /**
+     * This method removes the entry at a position of the heap of a row.
+     * @param row The row of the heap.
+     * @param position The position of the entry in the heap.
+     */
+    private void remove(int row, int position) {
+        final int LAST = --this.heapSizes[row];
+        if (position != LAST) {
+            this.place(row, position, this.heaps[row][LAST]);
+            this.siftDown(row, this.siftUp(row, position));
+        }
+    }
+
+    /**
+     * This method moves an entry of the heap of a row up until its parent comes before it.
+     * @param row The row of the heap.
+     * @param position The position of the entry in the heap.
+     * @return The new position of the entry.
+     */
+    private int siftUp(int row, int position) {
+        final int COLUMN = this.heaps[row][position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!this.isBefore(row, COLUMN, this.heaps[row][parent])) {
+                break;
+            }
+            this.place(row, position, this.heaps[row][parent]);
+            position = parent;
+        }
+        this.place(row, position, COLUMN);
+        return position;
+    }
+
+    /**
+     * This method moves an entry of the heap of a row down until it comes before its children.
+     * @param row The row of the heap.
+     * @param position The position of the entry in the heap.
+     */
+    private void siftDown(int row, int position) {
+        final int COLUMN = this.heaps[row][position];
+        final int SIZE = this.heapSizes[row];
+        while (2 * position + 1 < SIZE) {
+            int child = 2 * position + 1;
+            if (child + 1 < SIZE
+                && this.isBefore(row, this.heaps[row][child + 1], this.heaps[row][child])) {
+                child++;
+            }
+            if (!this.isBefore(row, this.heaps[row][child], COLUMN)) {
+                break;
+            }
+            this.place(row, position, this.heaps[row][child]);
+            position = child;
+        }
+        this.place(row, position, COLUMN);
+    }
+
+    /**
+     * This method stores an entry at a position of the heap of a row.
+     * @param row The row of the heap.
+     * @param position The position in the heap.
+     * @param column The row stored as the entry.
+     */
+    private void place(int row, int position, int column) {
+        this.heaps[row][position] = column;
+        this.heapPositions[row][column - row - 1] = position;
+    }
+
+    /**
+     * This method determines if an entry comes before another in the heap of a row.
+     * @param row The row of the heap.
+     * @param firstColumn The row of the first entry.
+     * @param secondColumn The row of the second entry.
+     * @return True if the first entry is closer to the row, or as close and a smaller row.
+     */
+    private boolean isBefore(int row, int firstColumn, int secondColumn) {
+        double firstDistance = this.distanceMatrix.get(row, firstColumn);
+        double secondDistance = this.distanceMatrix.get(row, secondColumn);
+        return firstDistance < secondDistance
+            || (firstDistance == secondDistance && firstColumn < secondColumn);
+    }
+}
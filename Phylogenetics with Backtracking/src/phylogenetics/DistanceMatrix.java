@@ -0,0 +1,283 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class stores the distances between clusters (species and ancestor nodes) used by the UPGMA
+ * algorithm. The matrix is symmetric with a diagonal of zeros, so only the upper triangle is stored
+ * in a single primitive array.
+ *
+ * Every row starts out active. When two clusters are merged the merged cluster reuses the row of
+ * one of them and the other row is deactivated, so no array is ever resized or shifted. The active
+ * rows are kept in their original order. The number of species in the cluster of every row is
+ * tracked so the merged distances can be weighted by cluster size.
+ *
+ * @author Krischan Woehrer
+ */
+public class DistanceMatrix {
+    // Number of rows (and columns) in a tile when the matrix is built from species
+    private static final int TILE_SIZE = 64;
+
+    private final int size;
+    private final double[] distances;
+    private final int[] activeRows;
+    private final int[] clusterSizes;
+    private int numberOfActiveRows;
+
+    /**
+     * Constructor method that creates a matrix of zeros with every row active.
+     * @param size The number of rows (and columns) of the matrix.
+     */
+    public DistanceMatrix(int size) {
+        long numberOfCells = (long) size * (size - 1) / 2;
+        if (numberOfCells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Too many species for a distance matrix, the maximum is 65536 species.");
+        }
+        this.size = size;
+        this.distances = new double[(int) numberOfCells];
+        this.activeRows = new int[size];
+        this.clusterSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.activeRows[i] = i;
+            this.clusterSizes[i] = 1;
+        }
+        this.numberOfActiveRows = size;
+    }
+
+    /**
+     * This method creates the distance matrix of an array of species. Only the upper triangle is
+     * calculated. The triangle is split into square tiles of TILE_SIZE rows and columns so the
+     * traits of a tile stay in the cache, and each band of tiles is calculated as a separate task
+     * on a shared ForkJoinPool. A matrix of a single band is calculated on this thread.
+     * @see Species.getDistanceValue for more information for how distance is calculated.
+     * @see SharedPools for which pool is used
+     * @param species The species, row i of the matrix is species[i].
+     * @param parallelism The number of threads used, 1 calculates every distance on this thread.
+     * @return The distance matrix of the species.
+     */
+    public static DistanceMatrix fromSpecies(Species[] species, int parallelism) {
+        DistanceMatrix distanceMatrix = new DistanceMatrix(species.length);
+        final int NUMBER_OF_BANDS = (species.length + TILE_SIZE - 1) / TILE_SIZE;
+        DistanceBandTask allBands =
+            new DistanceBandTask(distanceMatrix, species, 0, NUMBER_OF_BANDS);
+        if (parallelism <= 1 || NUMBER_OF_BANDS <= 1) {
+            allBands.calculateBands();
+        } else {
+            SharedPools.withParallelism(parallelism).invoke(allBands);
+        }
+        return distanceMatrix;
+    }
+
+    /**
+     * A task that calculates the distances of a range of bands of the upper triangle. A band is
+     * TILE_SIZE rows of the matrix. Ranges of more than one band are split in half.
+     */
+    private static class DistanceBandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final DistanceMatrix distanceMatrix;
+        private final Species[] species;
+        private final int firstBand;
+        private final int lastBand;
+
+        /**
+         * Constructor method that creates a task for the bands from firstBand (inclusive) to
+         * lastBand (exclusive).
+         * @param distanceMatrix The matrix the distances are stored in.
+         * @param species The species, row i of the matrix is species[i].
+         * @param firstBand The first band of the range.
+         * @param lastBand The band after the last band of the range.
+         */
+        DistanceBandTask(DistanceMatrix distanceMatrix, Species[] species, int firstBand,
+            int lastBand) {
+            this.distanceMatrix = distanceMatrix;
+            this.species = species;
+            this.firstBand = firstBand;
+            this.lastBand = lastBand;
+        }
+
+        /**
+         * Splits the range of bands until a single band is left, then calculates it.
+         */
+        @Override
+        protected void compute() {
+            if (this.lastBand - this.firstBand <= 1) {
+                this.calculateBands();
+                return;
+            }
+            int middleBand = (this.firstBand + this.lastBand) >>> 1;
+            invokeAll(
+                new DistanceBandTask(this.distanceMatrix, this.species, this.firstBand, middleBand),
+                new DistanceBandTask(this.distanceMatrix, this.species, middleBand, this.lastBand));
+        }
+
+        /**
+         * Calculates the distances of every tile of the bands in the range on this thread.
+         */
+        void calculateBands() {
+            final int NUMBER_OF_SPECIES = this.species.length;
+            for (int band = this.firstBand; band < this.lastBand; band++) {
+                int firstRow = band * TILE_SIZE;
+                int lastRow = Math.min(firstRow + TILE_SIZE, NUMBER_OF_SPECIES);
+                for (int firstColumn = firstRow; firstColumn < NUMBER_OF_SPECIES;
+                    firstColumn += TILE_SIZE) {
+                    int lastColumn = Math.min(firstColumn + TILE_SIZE, NUMBER_OF_SPECIES);
+                    for (int i = firstRow; i < lastRow; i++) {
+                        for (int j = Math.max(i + 1, firstColumn); j < lastColumn; j++) {
+                            this.distanceMatrix.set(i, j,
+                                this.species[i].getDistanceValue(this.species[j]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This method returns the index in the distances array of the cell at a row and column.
+     * The row must be smaller than the column.
+     * @param row The smaller of the two rows.
+     * @param column The larger of the two rows.
+     * @return The index of the cell.
+     */
+    private int cellIndex(int row, int column) {
+        return (int) ((long) row * (2L * this.size - row - 1) / 2) + (column - row - 1);
+    }
+
+    /**
+     * This is an accessor method that returns the distance between two rows.
+     * @param row A row of the matrix.
+     * @param column Another row of the matrix.
+     * @return The distance between the rows, 0 if they are the same row.
+     */
+    public double get(int row, int column) {
+        if (row == column) {
+            return 0;
+        } else if (row < column) {
+            return this.distances[cellIndex(row, column)];
+        } else {
+            return this.distances[cellIndex(column, row)];
+        }
+    }
+
+    /**
+     * This is a mutator method that changes the distance between two different rows.
+     * @param row A row of the matrix.
+     * @param column Another row of the matrix.
+     * @param distance The new distance between the rows.
+     */
+    public void set(int row, int column, double distance) {
+        if (row < column) {
+            this.distances[cellIndex(row, column)] = distance;
+        } else {
+            this.distances[cellIndex(column, row)] = distance;
+        }
+    }
+
+    /**
+     * This is an accessor method that returns the number of rows the matrix was created with.
+     * @return The size of the matrix.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * This is an accessor method that returns the number of rows that have not been removed.
+     * @return The number of active rows.
+     */
+    public int getNumberOfActiveRows() {
+        return this.numberOfActiveRows;
+    }
+
+    /**
+     * This is an accessor method that returns the row at a position among the active rows.
+     * Active rows are ordered from smallest to largest row.
+     * @param position A position from 0 to getNumberOfActiveRows() - 1.
+     * @return The row at that position.
+     */
+    public int getActiveRow(int position) {
+        return this.activeRows[position];
+    }
+
+    /**
+     * This is an accessor method that returns the number of species in the cluster of a row.
+     * @param row A row of the matrix.
+     * @return The size of the cluster.
+     */
+    public int getClusterSize(int row) {
+        return this.clusterSizes[row];
+    }
+
+    /**
+     * This method merges the clusters of two rows. The distance from the merged cluster to every
+     * other active row is calculated with the linkage and stored in secondRow, then firstRow is
+     * removed.
+     * @param firstRow The row of the first cluster, removed by the merge.
+     * @param secondRow The row of the second cluster, replaced by the merged cluster.
+     * @param linkage How the distances of the merged cluster are calculated.
+     */
+    public void merge(int firstRow, int secondRow, Linkage linkage) {
+        final int SIZE_OF_FIRST = this.clusterSizes[firstRow];
+        final int SIZE_OF_SECOND = this.clusterSizes[secondRow];
+        for (int i = 0; i < this.numberOfActiveRows; i++) {
+            int row = this.activeRows[i];
+            if (row != firstRow && row != secondRow) {
+                this.set(secondRow, row, linkage.mergedDistance(this.get(firstRow, row),
+                    this.get(secondRow, row), SIZE_OF_FIRST, SIZE_OF_SECOND));
+            }
+        }
+        this.clusterSizes[secondRow] = SIZE_OF_FIRST + SIZE_OF_SECOND;
+        this.removeRow(firstRow);
+    }
+
+    /**
+     * This method finds the position of a row among the active rows.
+     * @param row An active row.
+     * @return The position of the row, such that getActiveRow(position) == row.
+     */
+    public int getActivePosition(int row) {
+        int low = 0;
+        int high = this.numberOfActiveRows - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.activeRows[middle] < row) {
+                low = middle + 1;
+            } else if (this.activeRows[middle] > row) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method deactivates a row so it is no longer returned by getActiveRow.
+     * @param row The row to remove.
+     */
+    public void removeRow(int row) {
+        int position = this.getActivePosition(row);
+        System.arraycopy(this.activeRows, position + 1, this.activeRows, position,
+            this.numberOfActiveRows - position - 1);
+        this.numberOfActiveRows--;
+    }
+}
@@ -0,0 +1,152 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Fitch, W. M. (1971). Toward defining the course of evolution: minimum change for a specific
+// tree topology. Systematic Zoology 20(4): 406-416.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class determines the trait states of the ancestor nodes of a rooted tree with Fitch's small
+ * parsimony algorithm. Instead of trying every possible trait state of every ancestor node, each
+ * node is given a set of trait values that are optimal for its subtree (bottom-up pass) and a value
+ * is then picked from that set based off of its ancestor (top-down pass).
+ *
+ * Both passes visit each node once per trait, so the algorithm runs in O(nodes * traits) and finds
+ * the same minimum parsimony score as the backtracking algorithm in Parsimony.
+ *
+ * @author Krischan Woehrer
+ */
+public class FitchParsimony {
+    // Trait value sets are stored as two bits. Bit 0 set means the trait may be absent (0),
+    // bit 1 set means the trait may be present (1).
+    private static final byte ABSENT = 1;
+    private static final byte PRESENT = 2;
+
+    /**
+     * This method takes a rooted tree and sets the trait states of every ancestor node to the
+     * states that result in maximum parsimony of the tree. Each trait is solved on its own, one
+     * after another.
+     * @param tree A rooted tree containing species and their ancestors.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree) {
+        TreeIndex index = new TreeIndex(tree.getRoot());
+        final int NUMBER_OF_TRAITS = tree.getInitialSpecies().get(0).getNumberOfTraits();
+        int[][] traitMatrix = createTraitMatrix(index, NUMBER_OF_TRAITS);
+        byte[] traitValueSets = new byte[index.size()];
+
+        int parsimonyScore = 0;
+        for (int i = 0; i < NUMBER_OF_TRAITS; i++) {
+            parsimonyScore += solveTrait(index, traitMatrix, i, traitValueSets);
+        }
+        applyTraitMatrix(index, traitMatrix);
+
+        return parsimonyScore;
+    }
+
+    /**
+     * This method creates a trait matrix that runs parallel to the nodes of a tree index. Every
+     * ancestor node is given a new, empty trait array to be filled in by solveTrait. Leaves are
+     * left null as their traits are read from their packed trait bits.
+     * @param index The indexed tree.
+     * @param numberOfTraits The number of traits per species.
+     * @return An array of trait arrays, one per node.
+     */
+    static int[][] createTraitMatrix(TreeIndex index, int numberOfTraits) {
+        int[][] traitMatrix = new int[index.size()][];
+        for (int i = 0; i < index.size(); i++) {
+            if (!index.isLeaf(i)) {
+                traitMatrix[i] = new int[numberOfTraits];
+            }
+        }
+        return traitMatrix;
+    }
+
+    /**
+     * This method sets the trait arrays of every ancestor node to the arrays in a trait matrix.
+     * @param index The indexed tree.
+     * @param traitMatrix The trait matrix filled in by solveTrait.
+     */
+    static void applyTraitMatrix(TreeIndex index, int[][] traitMatrix) {
+        Species[] nodes = index.getNodes();
+        for (int i = 0; i < nodes.length; i++) {
+            if (!index.isLeaf(i)) {
+                nodes[i].setTraits(traitMatrix[i]);
+            }
+        }
+    }
+
+    /**
+     * This method runs both passes of Fitch's algorithm on a single trait and stores the value of
+     * that trait for every ancestor node in the trait matrix. Only the column of the trait matrix
+     * at traitIndex is written to, so different traits can be solved at the same time.
+     * @param index The indexed tree.
+     * @param traitMatrix The trait matrix created by createTraitMatrix.
+     * @param traitIndex The trait (column of the trait matrix) to solve.
+     * @param traitValueSets A scratch array with one element per node. Its contents are overwritten.
+     * @return The minimum number of changes of this trait on the tree.
+     */
+    static int solveTrait(TreeIndex index, int[][] traitMatrix, int traitIndex,
+        byte[] traitValueSets) {
+        Species[] nodes = index.getNodes();
+        int[] left = index.getLeftDescendants();
+        int[] right = index.getRightDescendants();
+        int[] ancestor = index.getAncestors();
+        final int NUMBER_OF_NODES = index.size();
+        int numberOfChanges = 0;
+
+        // Bottom-up pass. Nodes are in post-order so both descendants are visited before their
+        // ancestor. Whenever the descendant sets share no value a change is unavoidable.
+        for (int i = 0; i < NUMBER_OF_NODES; i++) {
+            if (left[i] == -1) {
+                traitValueSets[i] =
+                    TraitBits.isSet(nodes[i].getTraitBits(), traitIndex) ? PRESENT : ABSENT;
+            } else {
+                byte leftSet = traitValueSets[left[i]];
+                byte rightSet = traitValueSets[right[i]];
+                byte intersection = (byte) (leftSet & rightSet);
+                if (intersection == 0) {
+                    traitValueSets[i] = (byte) (leftSet | rightSet);
+                    numberOfChanges++;
+                } else {
+                    traitValueSets[i] = intersection;
+                }
+            }
+        }
+
+        // Top-down pass. The root is visited first, then every ancestor node keeps the trait value
+        // of its own ancestor whenever that value is in its set.
+        for (int i = NUMBER_OF_NODES - 1; i >= 0; i--) {
+            if (left[i] == -1) {
+                continue;
+            }
+            byte valueSet = traitValueSets[i];
+            if (ancestor[i] != -1) {
+                int ancestorValue = traitMatrix[ancestor[i]][traitIndex];
+                if ((valueSet & (ancestorValue == 1 ? PRESENT : ABSENT)) != 0) {
+                    traitMatrix[i][traitIndex] = ancestorValue;
+                    continue;
+                }
+            }
+            // Ties are broken towards the trait being absent
+            traitMatrix[i][traitIndex] = (valueSet & ABSENT) != 0 ? 0 : 1;
+        }
+
+        return numberOfChanges;
+    }
+}
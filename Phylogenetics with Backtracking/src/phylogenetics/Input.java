@@ -17,19 +17,27 @@ package phylogenetics;
 //
 /////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
 
-import java.util.Scanner;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class contains the methods for taking the inputFile.txt and converting it
  * to usable data for the program.
+ * 
+ * The file is read byte by byte through a large buffer instead of with a Scanner, and traits are
+ * packed straight into the trait bitsets of each species. No String or int array is created per
+ * trait, so large matrices are read about as fast as the disk can provide them.
+ * Files in the binary matrix format are loaded with BinaryMatrix instead.
  * @author Krischan Woehrer
  *
  */
 
 public class Input {
+    private static final int BUFFER_SIZE = 1 << 16;
 
     /**
      * This method creates an array of species object from a user.txt file. 
@@ -37,24 +45,39 @@ public class Input {
      * @return
      */
     public static Species[] transposeFile(String[] args) {
-        System.out.println("Transposing Input File \"" + args[0] + "\"...");
+        return transposeFile(args[0]);
+    }
+
+    /**
+     * This method creates an array of species object from a user.txt file.
+     * @param fileName The name of the input file.
+     * @return An array of species, or null if the file could not be transposed.
+     */
+    public static Species[] transposeFile(String fileName) {
+        System.out.println("Transposing Input File \"" + fileName + "\"...");
+        // Binary matrix files are memory mapped instead of parsed
+        if (BinaryMatrix.isBinaryMatrix(fileName)) {
+            try {
+                Species[] descendants = BinaryMatrix.load(fileName);
+                System.out.println("\tDone Loading Binary Matrix File!");
+                return descendants;
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                return null;
+            }
+        }
         Species[] descendants = null;
-        Scanner scnr = null;
-        File file = new File(args[0]);
+        File file = new File(fileName);
         int numberOfSpecies = 0;
         int numberOfTraits = 0;
-        Scanner bufferScnr = null;
+        TokenReader reader = null;
 
         try {
-            scnr = new Scanner(file);
-
-            if (scnr.hasNextLine()) {
-                String firstLineOfInput = scnr.nextLine();
+            reader = new TokenReader(new FileInputStream(file));
 
-                bufferScnr = new Scanner(firstLineOfInput);
-
-                if (bufferScnr.hasNextInt()) {
-                    numberOfSpecies = bufferScnr.nextInt();
+            if (reader.hasNextToken(false)) {
+                if (reader.nextToken(true) && reader.tokenIsInteger()) {
+                    numberOfSpecies = reader.tokenAsInteger();
                     System.out.println("\tAcquired number of species.");
                 } else {
                     throw new Exception(
@@ -62,8 +85,8 @@ public class Input {
                             + "\n The program detected that either a non-integer was entered or no tokens were present");
                 }
 
-                if (bufferScnr.hasNextInt()) {
-                    numberOfTraits = bufferScnr.nextInt();
+                if (reader.nextToken(true) && reader.tokenIsInteger()) {
+                    numberOfTraits = reader.tokenAsInteger();
                     System.out.println("\tAcquired number of comparable traits.");
                 } else {
                     throw new Exception(
@@ -72,11 +95,10 @@ public class Input {
                             + "of traits.");
                 }
 
-                if (bufferScnr.hasNext()) {
+                if (reader.hasNextToken(true)) {
                     throw new Exception(
                         "First line should only contain the following: \"numberOfSpecies numberOfTraits\"");
                 }
-                bufferScnr.close();
                 // Initializes the descendant array
                 descendants = new Species[numberOfSpecies];
             } else {
@@ -85,9 +107,10 @@ public class Input {
 
 
             int indexOfDescendantArr = 0;
+            final int NUMBER_OF_WORDS = TraitBits.numberOfWords(numberOfTraits);
             System.out.println("\tTransposing species names and traits...");
-            while (scnr.hasNextLine()) {
-                int[] traitArr = new int[numberOfTraits];
+            while (reader.nextToken(false)) {
+                long[] traitBits = new long[NUMBER_OF_WORDS];
                 String name;
 
                 if (indexOfDescendantArr >= descendants.length) {
@@ -96,26 +119,29 @@ public class Input {
                             + " by the user.");
                 }
 
-                if (scnr.hasNextInt()) {
+                if (reader.tokenIsInteger()) {
                     throw new Exception(
                         "The first token entered on each line should be the species name. Cannot be an integer.");
                 }
-                name = scnr.next();
+                name = reader.tokenAsString();
 
                 try {
                     // Used this in case extra traits are entered or not enough traits are entered
                     // for each species. Could have used String.split and Integer.parseInt() methods
                     // but that wouldn't allow for as precise error generation.
                     for (int i = 0; i < numberOfTraits; i++) {
-                        if (scnr.hasNextInt()) {
-                            traitArr[i] = scnr.nextInt();
+                        if (reader.nextToken(false) && reader.tokenIsInteger()) {
+                            int trait = reader.tokenAsInteger();
                             // Check to make sure its a 1 or 2
-                            if (traitArr[i] != 1 && traitArr[i] != 0) {
+                            if (trait != 1 && trait != 0) {
                                 throw new Exception(
                                     "Only 0's (trait not present) or 1's (trait is present) should"
                                         + "be entered in for trait values.\n This error was generated by species \""
                                         + name + "\".");
                             }
+                            if (trait == 1) {
+                                TraitBits.set(traitBits, i);
+                            }
                         } else {
                             throw new Exception(
                                 "Only 0's (trait not present) or 1's (trait is present) should"
@@ -131,10 +157,17 @@ public class Input {
                 }
                 // Create new species from the information we parsed and add it to array of
                 // descendants
-                Species currSpecies = new Species(name, traitArr, true);
+                Species currSpecies = new Species(name, traitBits, numberOfTraits);
                 descendants[indexOfDescendantArr] = currSpecies;
                 indexOfDescendantArr++;
             }
+
+            if (descendants != null && indexOfDescendantArr < descendants.length) {
+                throw new Exception(
+                    "There are fewer species entered on the text document than specified by the user."
+                        + " Expected " + descendants.length + " species but found "
+                        + indexOfDescendantArr + ".");
+            }
         } catch (FileNotFoundException e) {
             System.out.println("File not found, please check to see if file is in correct location "
                 + "and it is spelled correctly.");
@@ -148,15 +181,174 @@ public class Input {
             e.printStackTrace();
             return null;
         } finally {
-            if (scnr != null) {
-                scnr.close();
-            }
-            if (bufferScnr != null) {
-                bufferScnr.close();
+            if (reader != null) {
+                reader.close();
             }
         }
         System.out.println("\tDone Transposing Input File!");
         return descendants;
     }
 
+    /**
+     * This class splits an input stream into whitespace separated tokens. The bytes of the current
+     * token are kept in a reusable array so reading a token does not create any objects.
+     */
+    private static class TokenReader {
+        private final InputStream input;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int bufferLength;
+        private int bufferPosition;
+        private byte[] token = new byte[64];
+        private int tokenLength;
+
+        /**
+         * Constructor method that creates a token reader over an input stream.
+         * @param input The stream to read from.
+         */
+        TokenReader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * Returns the next byte of the stream without consuming it.
+         * @return The next byte, or -1 at the end of the stream.
+         * @throws IOException If the stream cannot be read.
+         */
+        private int peek() throws IOException {
+            if (this.bufferPosition == this.bufferLength) {
+                this.bufferLength = this.input.read(this.buffer);
+                this.bufferPosition = 0;
+                if (this.bufferLength <= 0) {
+                    this.bufferLength = 0;
+                    return -1;
+                }
+            }
+            return this.buffer[this.bufferPosition];
+        }
+
+        /**
+         * Determines if a byte separates tokens.
+         * @param character A byte of the stream.
+         * @return True if the byte is whitespace.
+         */
+        private static boolean isWhitespace(int character) {
+            return character == ' ' || character == '\n' || character == '\r'
+                || character == '\t' || character == '\f' || character == 0x0B;
+        }
+
+        /**
+         * Skips whitespace until the start of the next token.
+         * @param stopAtEndOfLine True if a new line should not be skipped.
+         * @return True if a token follows, false if the end of the stream (or line) was reached.
+         * @throws IOException If the stream cannot be read.
+         */
+        boolean hasNextToken(boolean stopAtEndOfLine) throws IOException {
+            int character = this.peek();
+            while (character != -1 && isWhitespace(character)) {
+                if (stopAtEndOfLine && character == '\n') {
+                    return false;
+                }
+                this.bufferPosition++;
+                character = this.peek();
+            }
+            return character != -1;
+        }
+
+        /**
+         * Reads the next token into the token array.
+         * @param stopAtEndOfLine True if the token must be on the current line.
+         * @return True if a token was read.
+         * @throws IOException If the stream cannot be read.
+         */
+        boolean nextToken(boolean stopAtEndOfLine) throws IOException {
+            this.tokenLength = 0;
+            if (!this.hasNextToken(stopAtEndOfLine)) {
+                return false;
+            }
+            int character = this.peek();
+            while (character != -1 && !isWhitespace(character)) {
+                if (this.tokenLength == this.token.length) {
+                    byte[] largerToken = new byte[this.token.length * 2];
+                    System.arraycopy(this.token, 0, largerToken, 0, this.tokenLength);
+                    this.token = largerToken;
+                }
+                this.token[this.tokenLength++] = (byte) character;
+                this.bufferPosition++;
+                character = this.peek();
+            }
+            return true;
+        }
+
+        /**
+         * Determines if the current token is an integer (optionally signed decimal digits that
+         * fit in an int).
+         * @return True if the token is an integer.
+         */
+        boolean tokenIsInteger() {
+            int start = 0;
+            if (this.tokenLength > 0 && (this.token[0] == '-' || this.token[0] == '+')) {
+                start = 1;
+            }
+            if (start == this.tokenLength || this.tokenLength - start > 10) {
+                return false;
+            }
+            for (int i = start; i < this.tokenLength; i++) {
+                if (this.token[i] < '0' || this.token[i] > '9') {
+                    return false;
+                }
+            }
+            long value = this.tokenAsLong();
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+        }
+
+        /**
+         * Converts the current token to an integer. Only valid if tokenIsInteger is true.
+         * @return The value of the token.
+         */
+        int tokenAsInteger() {
+            // Traits are almost always a single digit
+            if (this.tokenLength == 1) {
+                return this.token[0] - '0';
+            }
+            return (int) this.tokenAsLong();
+        }
+
+        /**
+         * Converts the current token, made up of an optional sign and digits, to a long.
+         * @return The value of the token.
+         */
+        private long tokenAsLong() {
+            int start = 0;
+            boolean isNegative = false;
+            if (this.token[0] == '-' || this.token[0] == '+') {
+                isNegative = this.token[0] == '-';
+                start = 1;
+            }
+            long value = 0;
+            for (int i = start; i < this.tokenLength; i++) {
+                value = value * 10 + (this.token[i] - '0');
+            }
+            return isNegative ? -value : value;
+        }
+
+        /**
+         * Converts the current token to a string.
+         * @return The token as a UTF-8 decoded string.
+         */
+        String tokenAsString() {
+            return new String(this.token, 0, this.tokenLength, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Closes the underlying stream.
+         */
+        void close() {
+            try {
+                this.input.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,88 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This enum lists the ways the distance from a newly merged cluster to every other cluster can be
+ * determined. Each linkage only needs the distances of the two merged clusters to the other cluster
+ * and the sizes of the two merged clusters, so every update takes O(1) time.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public enum Linkage {
+    /**
+     * Unweighted pair group method with arithmetic mean. The merged distance is the mean distance
+     * between every species of the merged cluster and the other cluster, so larger clusters have
+     * more weight.
+     */
+    UPGMA {
+        @Override
+        public double mergedDistance(double distanceToFirst, double distanceToSecond,
+            int sizeOfFirst, int sizeOfSecond) {
+            return (distanceToFirst * sizeOfFirst + distanceToSecond * sizeOfSecond)
+                / (sizeOfFirst + sizeOfSecond);
+        }
+    },
+
+    /**
+     * Weighted pair group method with arithmetic mean. The merged distance is the plain mean of the
+     * distances of both merged clusters, no matter how many species they contain.
+     */
+    WPGMA {
+        @Override
+        public double mergedDistance(double distanceToFirst, double distanceToSecond,
+            int sizeOfFirst, int sizeOfSecond) {
+            return (distanceToFirst + distanceToSecond) / 2;
+        }
+    },
+
+    /**
+     * Single linkage. The merged distance is the distance of the closer of the merged clusters.
+     */
+    SINGLE {
+        @Override
+        public double mergedDistance(double distanceToFirst, double distanceToSecond,
+            int sizeOfFirst, int sizeOfSecond) {
+            return Math.min(distanceToFirst, distanceToSecond);
+        }
+    },
+
+    /**
+     * Complete linkage. The merged distance is the distance of the farther of the merged clusters.
+     */
+    COMPLETE {
+        @Override
+        public double mergedDistance(double distanceToFirst, double distanceToSecond,
+            int sizeOfFirst, int sizeOfSecond) {
+            return Math.max(distanceToFirst, distanceToSecond);
+        }
+    };
+
+    /**
+     * This method calculates the distance from a merged cluster to another cluster.
+     * @param distanceToFirst The distance from the other cluster to the first merged cluster.
+     * @param distanceToSecond The distance from the other cluster to the second merged cluster.
+     * @param sizeOfFirst The number of species in the first merged cluster.
+     * @param sizeOfSecond The number of species in the second merged cluster.
+     * @return The distance from the merged cluster to the other cluster.
+     */
+    public abstract double mergedDistance(double distanceToFirst, double distanceToSecond,
+        int sizeOfFirst, int sizeOfSecond);
+}
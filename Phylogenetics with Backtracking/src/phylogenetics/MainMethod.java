@@ -18,20 +18,32 @@ package phylogenetics;
 //
 /////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Scanner;
 
 /**
  * This class contains the main method for the command line interface.
  * 
+ * The program runs interactively when it is given a single input file, and prompts for whether
+ * to show parsimony and for the output file name. When it is given flags (@see CommandLineOptions)
+ * it runs without any prompts, so it can be used by job schedulers and pipelines.
+ * 
  * @author Krischan Woehrer
  *
  */
 public class MainMethod {
 
     public static void main(String[] args) {
+        if (CommandLineOptions.isBatchRun(args)) {
+            runWithoutPrompts(args);
+            return;
+        }
+
         // Get Input from user.
         if (args.length != 1) {
-            System.out.println("Proper usage: MainMethod fileContainingTraitValues.txt");
+            System.out.println(CommandLineOptions.USAGE);
             return;
         }
 
@@ -46,13 +58,7 @@ public class MainMethod {
         }
 
         // Working with the array
-        // Creates codenames for species and a glossary to determine what is what.
-        String[] speciesGlossary = new String[descendantArr.length];
-        for (int i = 0; i < descendantArr.length; i++) {
-            String speciesCode = "" + (char) (i + 65);
-            speciesGlossary[i] = speciesCode + ": " + descendantArr[i].getName();
-            descendantArr[i].setName(speciesCode);
-        }
+        String[] speciesGlossary = createSpeciesGlossary(descendantArr);
 
         // Create tree
         RootedTree tree = new RootedTree(descendantArr);
@@ -69,7 +75,10 @@ public class MainMethod {
                     + "If there are an excessive number of species and/or traits then the program could take"
                     + " an extraordinary amount of time. (Perhaps try running the program overnight in that case)\n");
             tree.setShowParsimony();
-            Parsimony.findMostParsimoniousTree(tree);
+            tree.generatePossibleAncestorTraits();
+            Parsimony parsimony = new Parsimony(tree);
+            parsimony.setProgressReportInterval(Parsimony.PROGRESS_REPORT_INTERVAL_MILLIS);
+            parsimony.solve(ParsimonyEngine.BACKTRACKING);
         }
         
      // Output methods
@@ -93,4 +102,168 @@ public class MainMethod {
         scnr.close();
     }
 
+    /**
+     * This method creates codenames for species and a glossary to determine what is what.
+     * The name of every species is replaced by its codename.
+     * @param descendantArr The species of the tree.
+     * @return The glossary, one "codename: name" line per species.
+     */
+    private static String[] createSpeciesGlossary(Species[] descendantArr) {
+        String[] speciesGlossary = new String[descendantArr.length];
+        for (int i = 0; i < descendantArr.length; i++) {
+            String speciesCode = "" + (char) (i + 65);
+            speciesGlossary[i] = speciesCode + ": " + descendantArr[i].getName();
+            descendantArr[i].setName(speciesCode);
+        }
+        return speciesGlossary;
+    }
+
+    /**
+     * This method runs the program from command line flags without prompting the user. Every
+     * input file is processed in this JVM, one after another. The process exits with status 1 if
+     * the flags are invalid or any input file could not be processed.
+     * @param args The command line arguments.
+     */
+    private static void runWithoutPrompts(String[] args) {
+        CommandLineOptions options;
+        ArrayList<String> inputFileNames;
+        try {
+            options = CommandLineOptions.parse(args);
+            inputFileNames = options.getInputFileNames();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(CommandLineOptions.USAGE);
+            System.exit(1);
+            return;
+        } catch (IOException e) {
+            System.out.println("Unable to read the batch directory. Exiting program now.");
+            System.exit(1);
+            return;
+        }
+
+        if (options.getConvertFileName() != null) {
+            if (!BinaryMatrix.convert(options.getInputFileName(), options.getConvertFileName())) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (inputFileNames.isEmpty()) {
+            System.out.println("No input files were found. Exiting program now.");
+            System.exit(1);
+        }
+        // Output files are placed in the output directory, so it has to exist before writing
+        for (String inputFileName : inputFileNames) {
+            File outputDirectory = new File(options.getOutputName(inputFileName)).getParentFile();
+            if (outputDirectory != null) {
+                outputDirectory.mkdirs();
+            }
+        }
+
+        int numberOfFailures = 0;
+        for (String inputFileName : inputFileNames) {
+            System.out.println("Processing \"" + inputFileName + "\".");
+            if (!processFile(inputFileName, options)) {
+                numberOfFailures++;
+            }
+        }
+        if (inputFileNames.size() > 1) {
+            System.out.println("Processed " + (inputFileNames.size() - numberOfFailures) + " of "
+                + inputFileNames.size() + " input files.");
+        }
+        if (numberOfFailures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * This method creates the tree of a single input file and writes it to its output file. A
+     * binary tree file is loaded instead of being built again, and keeps the ancestor traits and
+     * parsimony score it was saved with.
+     * @param inputFileName The name of the input file.
+     * @param options The options of the run.
+     * @return True if the output file was written.
+     */
+    private static boolean processFile(String inputFileName, CommandLineOptions options) {
+        RootedTree tree = createTree(inputFileName, options);
+        if (tree == null) {
+            return false;
+        }
+        if (options.getShowParsimony() && !tree.getShowParsimony()) {
+            ParsimonyEngine engine = options.getParsimonyEngine();
+            tree.setShowParsimony();
+            if (engine.requiresPossibleTraitStates()) {
+                tree.generatePossibleAncestorTraits();
+            }
+            Parsimony parsimony = new Parsimony(tree);
+            parsimony.setProgressReportInterval(Parsimony.PROGRESS_REPORT_INTERVAL_MILLIS);
+            if (options.getStepCostsFileName() != null) {
+                try {
+                    parsimony.setStepCosts(StepCosts.readFromFile(options.getStepCostsFileName(),
+                        tree.getInitialSpecies().get(0).getNumberOfTraits()));
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                    return false;
+                }
+            }
+            try {
+                parsimony.solve(engine, options.getThreads());
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                return false;
+            }
+        }
+        // The tree is saved before the names are replaced with codes for the drawn tree
+        if (options.getSaveTreeFileName() != null) {
+            try {
+                BinaryTreeFile.write(tree, options.getSaveTreeFileName());
+            } catch (IOException e) {
+                System.out.println("Unable to save the tree to \"" + options.getSaveTreeFileName()
+                    + "\".");
+                return false;
+            }
+        }
+
+        if (options.getTreeFormat() != TreeFormat.ASCII) {
+            return Output.writeTreeToFile(options.getOutputName(inputFileName), tree,
+                options.getTreeFormat(), options.createNewickWriter());
+        }
+        // Only the drawn tree replaces names with codes, NEWICK and NEXUS files keep the real names
+        // so other programs can read them
+        ArrayList<Species> initialSpecies = tree.getInitialSpecies();
+        String[] speciesGlossary =
+            createSpeciesGlossary(initialSpecies.toArray(new Species[initialSpecies.size()]));
+        tree.updateAncestorNames();
+        return Output.writeTreeToFile(options.getOutputName(inputFileName), tree, speciesGlossary);
+    }
+
+    /**
+     * This method builds the tree of a trait file, or loads the tree of a binary tree file.
+     * @param inputFileName The name of the input file.
+     * @param options The options of the run.
+     * @return The tree, or null if it could not be created.
+     */
+    private static RootedTree createTree(String inputFileName, CommandLineOptions options) {
+        if (BinaryTreeFile.isBinaryTreeFile(inputFileName)) {
+            try {
+                return BinaryTreeFile.load(inputFileName);
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                return null;
+            }
+        }
+        Species[] descendantArr = Input.transposeFile(inputFileName);
+        if (descendantArr == null) {
+            System.out.println("Failure to transpose input file \"" + inputFileName + "\".");
+            return null;
+        }
+        try {
+            return new RootedTree(descendantArr, options.getClusteringEngine(),
+                options.getLinkage(), options.getThreads());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
 }
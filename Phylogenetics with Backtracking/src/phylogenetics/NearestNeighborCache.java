@@ -0,0 +1,116 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Mullner, D. (2011). Modern hierarchical, agglomerative clustering algorithms.
+// arXiv:1109.2378 (the "generic" algorithm keeps a nearest neighbor per row)
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class remembers, for every active row of a distance matrix, the closest row after it in the
+ * upper triangle. The closest pair of clusters can then be found by looking at one value per row
+ * instead of every cell of the matrix.
+ *
+ * Ties are broken the same way as scanning the upper triangle row by row: the smallest row wins,
+ * then the smallest column. Merging two clusters only changes the distances in the row of the
+ * merged cluster, so only rows whose closest row was one of the merged clusters have to be
+ * rescanned.
+ *
+ * @author Krischan Woehrer
+ */
+public class NearestNeighborCache {
+    private final DistanceMatrix distanceMatrix;
+    private final int[] nearestRow;
+    private final double[] nearestDistance;
+
+    /**
+     * Constructor method that finds the closest row of every active row of a distance matrix.
+     * @param distanceMatrix The distance matrix. It should not have been merged yet.
+     */
+    public NearestNeighborCache(DistanceMatrix distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        this.nearestRow = new int[distanceMatrix.size()];
+        this.nearestDistance = new double[distanceMatrix.size()];
+        for (int i = 0; i < distanceMatrix.getNumberOfActiveRows(); i++) {
+            this.rescanRow(i);
+        }
+    }
+
+    /**
+     * This method finds the closest row after the row at a position among the active rows.
+     * @param position The position of the row among the active rows.
+     */
+    private void rescanRow(int position) {
+        int row = this.distanceMatrix.getActiveRow(position);
+        int closestRow = -1;
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        for (int i = position + 1; i < this.distanceMatrix.getNumberOfActiveRows(); i++) {
+            int column = this.distanceMatrix.getActiveRow(i);
+            double distance = this.distanceMatrix.get(row, column);
+            if (minimumDistance > distance) {
+                minimumDistance = distance;
+                closestRow = column;
+            }
+        }
+        this.nearestRow[row] = closestRow;
+        this.nearestDistance[row] = minimumDistance;
+    }
+
+    /**
+     * This method finds the two closest clusters.
+     * @return An array containing the rows of the two closest clusters. The first row is always
+     *      smaller than the second.
+     */
+    public int[] findSmallestDistance() {
+        int[] twoClosestClusters = new int[2];
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.distanceMatrix.getNumberOfActiveRows() - 1; i++) {
+            int row = this.distanceMatrix.getActiveRow(i);
+            if (minimumDistance > this.nearestDistance[row]) {
+                minimumDistance = this.nearestDistance[row];
+                twoClosestClusters[0] = row;
+                twoClosestClusters[1] = this.nearestRow[row];
+            }
+        }
+        return twoClosestClusters;
+    }
+
+    /**
+     * This method updates the closest rows after two clusters have been merged. The merged cluster
+     * must be stored in secondRow and firstRow must already be removed from the distance matrix.
+     * @param firstRow The removed row.
+     * @param secondRow The row of the merged cluster.
+     */
+    public void merged(int firstRow, int secondRow) {
+        final int POSITION_OF_SECOND_ROW = this.distanceMatrix.getActivePosition(secondRow);
+        // Rows after the merged cluster only look at rows after themselves, which did not change
+        for (int i = 0; i < POSITION_OF_SECOND_ROW; i++) {
+            int row = this.distanceMatrix.getActiveRow(i);
+            if (this.nearestRow[row] == firstRow || this.nearestRow[row] == secondRow) {
+                this.rescanRow(i);
+            } else {
+                double distance = this.distanceMatrix.get(row, secondRow);
+                if (distance < this.nearestDistance[row] || (distance == this.nearestDistance[row]
+                    && secondRow < this.nearestRow[row])) {
+                    this.nearestRow[row] = secondRow;
+                    this.nearestDistance[row] = distance;
+                }
+            }
+        }
+        this.rescanRow(POSITION_OF_SECOND_ROW);
+    }
+}
@@ -0,0 +1,210 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Maddison, D. R., Swofford, D. L. and Maddison, W. P. (1997). NEXUS: an extensible file format
+// for systematic information. Systematic Biology 46(4): 590-621.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * This class writes a rooted tree in the Newick and NEXUS formats, which other phylogenetics
+ * programs can read. Initial species are written with their names and ancestor nodes are left
+ * unnamed, as their names are only the names of their descendants joined together.
+ *
+ * Optionally, the length of every branch is written as the difference between the heights of the
+ * ancestor and the descendant, and the traits of every ancestor node are written as a comment such
+ * as [&traits=0110], with '?' for unknown traits.
+ *
+ * The tree is walked once with an explicit stack instead of recursion, so very deep (unbalanced)
+ * trees do not overflow the stack, and text is written straight to the writer as it is produced.
+ *
+ * @author Krischan Woehrer
+ */
+public class NewickWriter {
+    // Chars that cannot appear in an unquoted Newick label
+    private static final String RESERVED_CHARS = "()[]':;,";
+
+    private final boolean includeBranchLengths;
+    private final boolean includeAncestorTraits;
+
+    /**
+     * Constructor method that creates a writer.
+     * @param includeBranchLengths True to write the height difference of every branch.
+     * @param includeAncestorTraits True to write the traits of every ancestor node as a comment.
+     */
+    public NewickWriter(boolean includeBranchLengths, boolean includeAncestorTraits) {
+        this.includeBranchLengths = includeBranchLengths;
+        this.includeAncestorTraits = includeAncestorTraits;
+    }
+
+    /**
+     * This method writes a tree as a single Newick string followed by a new line.
+     * @param tree The tree to write.
+     * @param writer The writer the tree is written to. Should be buffered, it is not flushed or
+     *      closed.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public void writeNewick(RootedTree tree, Writer writer) throws IOException {
+        this.writeNewickTree(tree, writer, null);
+        writer.write('\n');
+    }
+
+    /**
+     * This method writes a tree as a NEXUS file with a TAXA block listing every initial species and
+     * a TREES block containing the tree. Initial species are numbered in the TRANSLATE command so
+     * each name is only written once.
+     * @param tree The tree to write.
+     * @param writer The writer the file is written to. Should be buffered, it is not flushed or
+     *      closed.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public void writeNexus(RootedTree tree, Writer writer) throws IOException {
+        ArrayList<Species> initialSpecies = tree.getInitialSpecies();
+        IdentityHashMap<Species, Integer> taxonNumbers = new IdentityHashMap<Species, Integer>();
+        for (int i = 0; i < initialSpecies.size(); i++) {
+            taxonNumbers.put(initialSpecies.get(i), i + 1);
+        }
+
+        writer.write("#NEXUS\n\n");
+        writer.write("BEGIN TAXA;\n");
+        writer.write("\tDIMENSIONS NTAX=" + initialSpecies.size() + ";\n");
+        writer.write("\tTAXLABELS\n");
+        for (Species species : initialSpecies) {
+            writer.write("\t\t");
+            writeLabel(writer, species.getName());
+            writer.write('\n');
+        }
+        writer.write("\t;\nEND;\n\n");
+
+        writer.write("BEGIN TREES;\n");
+        writer.write("\tTRANSLATE\n");
+        for (int i = 0; i < initialSpecies.size(); i++) {
+            writer.write("\t\t" + (i + 1) + " ");
+            writeLabel(writer, initialSpecies.get(i).getName());
+            writer.write(i + 1 < initialSpecies.size() ? ",\n" : "\n");
+        }
+        writer.write("\t;\n");
+        if (tree.getShowParsimony()) {
+            writer.write("\t[Parsimony score: " + tree.getParsimonyScore() + "]\n");
+        }
+        writer.write("\tTREE tree1 = [&R] ");
+        this.writeNewickTree(tree, writer, taxonNumbers);
+        writer.write("\nEND;\n");
+    }
+
+    /**
+     * This method writes a tree as a Newick string ending in ';'.
+     * @param tree The tree to write.
+     * @param writer The writer the tree is written to.
+     * @param taxonNumbers The number written in place of the name of each initial species, null to
+     *      write names.
+     * @throws IOException If the writer cannot be written to.
+     */
+    private void writeNewickTree(RootedTree tree, Writer writer,
+        IdentityHashMap<Species, Integer> taxonNumbers) throws IOException {
+        Species root = tree.getRoot();
+        // The number of descendants already written of each ancestor node on the stack, by depth.
+        // The stack can never be deeper than the height of the root.
+        int[] descendantsWritten = new int[root.getHeight()];
+        ArrayDeque<Species> stack = new ArrayDeque<Species>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Species current = stack.peek();
+            int depth = stack.size() - 1;
+            if (current.getHeight() != 1 && descendantsWritten[depth] < 2) {
+                // Opens the ancestor node, or separates its descendants, then visits the next one
+                writer.write(descendantsWritten[depth] == 0 ? '(' : ',');
+                stack.push(current.getDescendants()[descendantsWritten[depth]]);
+                descendantsWritten[depth]++;
+                descendantsWritten[depth + 1] = 0;
+                continue;
+            }
+
+            // Both descendants have been written (or this is an initial species)
+            stack.pop();
+            if (current.getHeight() == 1) {
+                if (taxonNumbers != null) {
+                    writer.write(Integer.toString(taxonNumbers.get(current)));
+                } else {
+                    writeLabel(writer, current.getName());
+                }
+            } else {
+                writer.write(')');
+                if (this.includeAncestorTraits && current.getTraits() != null) {
+                    writeTraitsComment(writer, current.getTraits());
+                }
+            }
+            if (this.includeBranchLengths && current != root) {
+                writer.write(':');
+                writer.write(Integer.toString(current.getAncestor().getHeight()
+                    - current.getHeight()));
+            }
+        }
+        writer.write(';');
+    }
+
+    /**
+     * This method writes a Newick label. Labels that contain whitespace or reserved chars are
+     * quoted with single quotes, and single quotes inside them are doubled.
+     * @param writer The writer the label is written to.
+     * @param label The label, nothing is written if it is null.
+     * @throws IOException If the writer cannot be written to.
+     */
+    static void writeLabel(Writer writer, String label) throws IOException {
+        if (label == null) {
+            return;
+        }
+        boolean needsQuotes = label.isEmpty();
+        for (int i = 0; i < label.length() && !needsQuotes; i++) {
+            char c = label.charAt(i);
+            needsQuotes = Character.isWhitespace(c) || RESERVED_CHARS.indexOf(c) >= 0;
+        }
+        if (!needsQuotes) {
+            writer.write(label);
+            return;
+        }
+        writer.write('\'');
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c == '\'') {
+                writer.write('\'');
+            }
+            writer.write(c);
+        }
+        writer.write('\'');
+    }
+
+    /**
+     * This method writes the traits of an ancestor node as a comment, for example [&traits=01?1].
+     * @param writer The writer the comment is written to.
+     * @param traits The traits of the ancestor node, -1 for an unknown trait.
+     * @throws IOException If the writer cannot be written to.
+     */
+    private static void writeTraitsComment(Writer writer, int[] traits) throws IOException {
+        writer.write("[&traits=");
+        for (int trait : traits) {
+            writer.write(trait == -1 ? '?' : Character.forDigit(trait, 10));
+        }
+        writer.write(']');
+    }
+}
@@ -18,16 +18,24 @@ package phylogenetics;
 //
 /////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * This class is responsible for writing the output file.
+ * The tree and glossary are streamed to a buffered writer instead of being built as one string,
+ * so large trees are written in time linear in the size of the file.
  * @author Krischan Woehrer 
  *
  */
 public class Output {
+    // Size of the block of repeated chars written at a time by writeRepeatedChar
+    private static final int REPEATED_CHAR_BLOCK_SIZE = 256;
     
     public static boolean writeTreeToFile(String fileName, RootedTree tree, String[] descendantGlossary) {
         boolean success = false;
@@ -35,14 +43,25 @@ public class Output {
         PrintWriter writer = null;
        
         try{
+            // A PrintWriter created from a file is already buffered
             writer = new PrintWriter(outputFile);
-            writer.println(tree);
-            writer.println(multipleCharsToString('-',tree.getWidth()));
+            tree.writeTo(writer);
+            writer.println();
+            writeRepeatedChar(writer, '-', tree.getWidth());
+            writer.println();
             String speciesGlossary = "Species Glossary";
-            writer.println(multipleCharsToString(' ',(tree.getWidth()-speciesGlossary.length())/2) + speciesGlossary);
-            writer.print(strArrtoStr(descendantGlossary));
+            writeRepeatedChar(writer, ' ', (tree.getWidth() - speciesGlossary.length()) / 2);
+            writer.println(speciesGlossary);
+            for (String glossaryLine : descendantGlossary) {
+                writer.print(glossaryLine);
+                writer.print('\n');
+            }
             
-            success = true;
+            // PrintWriter does not throw, write errors are only reported by checkError
+            success = !writer.checkError();
+            if (!success) {
+                System.out.println("Unable to write file to designated file name.");
+            }
         } catch (IOException e){
             System.out.println("Unable to write file to designated file name.");
         } finally {
@@ -55,21 +74,49 @@ public class Output {
             + ".txt\". Please check for your file at " + outputFile.getAbsolutePath());
         return success;
     }
+    
     /**
-     * This method concatenates an array of strings into a single string.
-     * The elements of the string array will be separated by a new line character.
-     * @param strArr
-     * @return
+     * This method writes a tree to a file in the NEWICK or NEXUS format. The file is streamed
+     * through a buffered writer as the tree is walked, so no string of the whole tree is built.
+     * @param fileName The name of the file without its extension, which is added by the format.
+     * @param tree The tree to write.
+     * @param format The format, NEWICK or NEXUS.
+     * @param newickWriter The writer that decides if branch lengths and ancestor traits are written.
+     * @return True if the file was written.
      */
-    private static String strArrtoStr(String[] strArr) {
-        String combinedStr = "";
-        for(int i = 0; i < strArr.length; i++) {
-            combinedStr += strArr[i] + "\n";
+    public static boolean writeTreeToFile(String fileName, RootedTree tree, TreeFormat format,
+        NewickWriter newickWriter) {
+        boolean success = false;
+        File outputFile = new File(fileName + format.getExtension());
+        BufferedWriter writer = null;
+
+        try {
+            writer = new BufferedWriter(new FileWriter(outputFile));
+            if (format == TreeFormat.NEXUS) {
+                newickWriter.writeNexus(tree, writer);
+            } else {
+                newickWriter.writeNewick(tree, writer);
+            }
+            writer.close();
+            writer = null;
+            success = true;
+        } catch (IOException e) {
+            System.out.println("Unable to write file to designated file name.");
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // The write already failed and was reported
+                }
+            }
         }
-        
-        return combinedStr;
+
+        System.out.println("Complete. Your file is named \"" + fileName + format.getExtension()
+            + "\". Please check for your file at " + outputFile.getAbsolutePath());
+        return success;
     }
-    
+
     /**
      * This method creates a string that contains a specified char a specified number of times;
      * @param charToConcetenate
@@ -77,10 +124,29 @@ public class Output {
      * @return
      */
     public static String multipleCharsToString(char charToConcetenate, int numberToConcetenate) {
-        String multipleCharLine = "";
-        for (int i = 0; i < numberToConcetenate; i++) {
-            multipleCharLine += charToConcetenate;
+        if (numberToConcetenate <= 0) {
+            return "";
+        }
+        char[] multipleCharLine = new char[numberToConcetenate];
+        Arrays.fill(multipleCharLine, charToConcetenate);
+        return new String(multipleCharLine);
+    }
+
+    /**
+     * This method writes a specified char a specified number of times without creating a string
+     * of that length.
+     * @param writer The writer the chars are written to.
+     * @param charToWrite The char to write.
+     * @param numberToWrite The number of times to write the char, nothing is written if it is 0 or
+     *      less.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public static void writeRepeatedChar(Writer writer, char charToWrite, int numberToWrite)
+        throws IOException {
+        char[] block = new char[Math.min(Math.max(numberToWrite, 0), REPEATED_CHAR_BLOCK_SIZE)];
+        Arrays.fill(block, charToWrite);
+        for (int written = 0; written < numberToWrite; written += block.length) {
+            writer.write(block, 0, Math.min(block.length, numberToWrite - written));
         }
-        return multipleCharLine;
     }
 }
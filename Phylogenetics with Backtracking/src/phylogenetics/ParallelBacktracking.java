@@ -0,0 +1,346 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class runs the backtracking (branch and bound) search over the possible trait states of the
+ * ancestor nodes on a ForkJoinPool. It explores the same trait states in the same order as
+ * Parsimony.findOptimalTraitStates, but the possible trait states of the first ancestor nodes the
+ * search assigns are split into ranges that are searched by separate tasks, which are stolen by
+ * idle threads. A range is halved until the task has no budget left, so no more than
+ * TASKS_PER_THREAD tasks per thread are ever created however many trait states there are.
+ *
+ * Every task keeps its own assignment of trait states as bitsets, so no species is changed during
+ * the search. Like the sequential search, a task moves from one possible trait state to the next by
+ * changing a single trait in place. The smallest parsimony score found by any task is shared
+ * through an AtomicInteger so that every task prunes with the best bound found so far.
+ *
+ * When several trees have the smallest parsimony score, which one is returned depends on the order
+ * the threads find them in.
+ *
+ * @see Parsimony.findOptimalTraitStates for the sequential search.
+ * @author Krischan Woehrer
+ */
+public class ParallelBacktracking {
+    // Trait state ranges are split into tasks until there are this many tasks per thread
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final Species[] ancestorNodes;
+    private final int numberOfTraits;
+    private final int numberOfWords;
+    private final PossibleTraitStates[] possibleTraitStates;
+    private final ParsimonyLowerBound lowerBound;
+    private final SearchProgress progress;
+    private final AtomicInteger smallestParsimonyScore;
+    private long[] bestTraitStateIndices;
+
+    /**
+     * Constructor method that prepares a search over the possible trait states of ancestor nodes.
+     * @param ancestorNodes The ancestor nodes of a tree in pre-order, index 0 is the root. Every
+     *      ancestor node must have its possible trait states generated.
+     * @param initialBound The parsimony score of a known tree. Only trees with a parsimony score
+     *      smaller than or equal to it are searched for.
+     * @param progress The progress counters updated by the search.
+     */
+    public ParallelBacktracking(Species[] ancestorNodes, int initialBound,
+        SearchProgress progress) {
+        this.ancestorNodes = ancestorNodes;
+        this.numberOfTraits = ancestorNodes.length == 0 ? 0 : ancestorNodes[0].getNumberOfTraits();
+        this.numberOfWords = TraitBits.numberOfWords(this.numberOfTraits);
+        this.possibleTraitStates = new PossibleTraitStates[ancestorNodes.length];
+        for (int i = 0; i < ancestorNodes.length; i++) {
+            this.possibleTraitStates[i] = ancestorNodes[i].getPossibleTraitStates();
+        }
+        this.lowerBound = new ParsimonyLowerBound(ancestorNodes);
+        this.progress = progress;
+        this.smallestParsimonyScore = new AtomicInteger(initialBound);
+    }
+
+    /**
+     * This method searches for the trait states of the ancestor nodes with the smallest parsimony
+     * score. The search runs on a shared ForkJoinPool, or on this thread for a single thread.
+     * @see SharedPools for which pool is used
+     * @param parallelism The number of threads used to search.
+     * @return The position in getPossibleTraitStates() of the best trait state of every ancestor
+     *      node, or null if no tree has a parsimony score smaller than or equal to the initial
+     *      bound.
+     */
+    public long[] search(int parallelism) {
+        final int NUMBER_OF_ANCESTORS = this.ancestorNodes.length;
+        if (NUMBER_OF_ANCESTORS == 0) {
+            return null;
+        }
+
+        // The last ancestor node is assigned first
+        final int FIRST_INDEX = NUMBER_OF_ANCESTORS - 1;
+        // A single thread searches every trait state as one task on this thread
+        SearchTask rootTask = new SearchTask(new long[NUMBER_OF_ANCESTORS],
+            new int[NUMBER_OF_ANCESTORS + 1], new long[NUMBER_OF_ANCESTORS][this.numberOfWords],
+            FIRST_INDEX, 0, this.possibleTraitStates[FIRST_INDEX].size(),
+            parallelism <= 1 ? 1 : (long) parallelism * TASKS_PER_THREAD);
+        if (parallelism <= 1) {
+            rootTask.invoke();
+        } else {
+            SharedPools.withParallelism(parallelism).invoke(rootTask);
+        }
+        return this.bestTraitStateIndices;
+    }
+
+    /**
+     * This is an accessor method that returns the smallest parsimony score found.
+     * @return The smallest parsimony score, the initial bound if no tree was found.
+     */
+    public int getSmallestParsimonyScore() {
+        return this.smallestParsimonyScore.get();
+    }
+
+    /**
+     * This method records a complete tree if its parsimony score is smaller than or equal to the
+     * smallest parsimony score found so far.
+     * @param parsimonyScore The parsimony score of the tree.
+     * @param traitStateIndices The trait state position of every ancestor node of the tree.
+     */
+    private synchronized void recordTree(int parsimonyScore, long[] traitStateIndices) {
+        if (parsimonyScore <= this.smallestParsimonyScore.get()) {
+            this.smallestParsimonyScore.set(parsimonyScore);
+            this.bestTraitStateIndices = traitStateIndices.clone();
+            this.progress.scoreFound(parsimonyScore);
+        }
+    }
+
+    /**
+     * A task that searches every tree whose ancestor nodes after speciesIndex have already been
+     * assigned, and whose ancestor node at speciesIndex has a trait state in the range
+     * [fromState, toState). While the task has a budget of more than one task, the range is halved
+     * into two tasks that share the budget. A range of a single trait state is assigned and the
+     * task continues with every trait state of the next ancestor node.
+     */
+    private class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final long[] traitStateIndices;
+        private final int[] partialParsimonyScores;
+        private final long[][] assignedPresent;
+        private final int speciesIndex;
+        private final long fromState;
+        private final long toState;
+        private final long taskBudget;
+        private ParsimonyLowerBound taskLowerBound;
+
+        /**
+         * Constructor method that creates a task from the assignment of its ancestor nodes. The
+         * arrays are owned by the task.
+         * @param traitStateIndices The trait state position of every assigned ancestor node.
+         * @param partialParsimonyScores The score of the edges below every assigned ancestor node,
+         *      summed from that ancestor node to the last ancestor node.
+         * @param assignedPresent The present trait bits of every ancestor node, only the bits of
+         *      the assigned ancestor nodes are used.
+         * @param speciesIndex The index of the ancestor node whose trait states are searched.
+         * @param fromState The position of the first trait state searched.
+         * @param toState The position after the last trait state searched.
+         * @param taskBudget The largest number of tasks this task may be split into.
+         */
+        SearchTask(long[] traitStateIndices, int[] partialParsimonyScores,
+            long[][] assignedPresent, int speciesIndex, long fromState, long toState,
+            long taskBudget) {
+            this.traitStateIndices = traitStateIndices;
+            this.partialParsimonyScores = partialParsimonyScores;
+            this.assignedPresent = assignedPresent;
+            this.speciesIndex = speciesIndex;
+            this.fromState = fromState;
+            this.toState = toState;
+            this.taskBudget = taskBudget;
+        }
+
+        /**
+         * Halves the range of trait states into two tasks, or follows a single trait state to the
+         * next ancestor node, until the budget is used up. The rest of the range is then searched
+         * on this thread.
+         */
+        @Override
+        protected void compute() {
+            this.taskLowerBound = new ParsimonyLowerBound(lowerBound);
+            int index = this.speciesIndex;
+            long from = this.fromState;
+            long to = this.toState;
+            long budget = this.taskBudget;
+            while (budget > 1) {
+                if (to - from > 1) {
+                    // Only the second half needs its own copy of the assignment
+                    final long MIDDLE = from + (to - from) / 2;
+                    long[][] assignedPresentCopy = new long[this.assignedPresent.length][];
+                    for (int j = 0; j < assignedPresentCopy.length; j++) {
+                        assignedPresentCopy[j] = this.assignedPresent[j].clone();
+                    }
+                    invokeAll(new SearchTask(this.traitStateIndices, this.partialParsimonyScores,
+                        this.assignedPresent, index, from, MIDDLE, budget / 2),
+                        new SearchTask(this.traitStateIndices.clone(),
+                            this.partialParsimonyScores.clone(), assignedPresentCopy, index,
+                            MIDDLE, to, budget - budget / 2));
+                    return;
+                }
+                // A single trait state is assigned before splitting the next ancestor node
+                possibleTraitStates[index].writeStatePresentBits(from,
+                    this.assignedPresent[index]);
+                if (!this.assign(index, from, this.scoreToDescendants(index))) {
+                    return;
+                }
+                index--;
+                from = 0;
+                to = possibleTraitStates[index].size();
+            }
+            this.searchRange(index, from, to);
+        }
+
+        /**
+         * This recursive method explores every trait state of the ancestor node before
+         * speciesIndex, and the ancestor nodes before it for every state that is not pruned.
+         * @param speciesIndex The index of the last ancestor node assigned.
+         */
+        private void searchFrom(int speciesIndex) {
+            speciesIndex--;
+            if (speciesIndex < 0) {
+                return;
+            }
+            this.searchRange(speciesIndex, 0, possibleTraitStates[speciesIndex].size());
+        }
+
+        /**
+         * This method explores a range of the trait states of an ancestor node, and the ancestor
+         * nodes before it for every state that is not pruned. Like the whole range, the trait
+         * states of a range after its first differ from the one before them in a single trait.
+         * @param speciesIndex The index of the ancestor node.
+         * @param from The position of the first trait state explored.
+         * @param to The position after the last trait state explored.
+         */
+        private void searchRange(int speciesIndex, long from, long to) {
+            PossibleTraitStates states = possibleTraitStates[speciesIndex];
+            long[] present = this.assignedPresent[speciesIndex];
+            int parsimonyScoreToDescendants = 0;
+            for (long i = from; i < to; i++) {
+                if (i == from) {
+                    states.writeStatePresentBits(from, present);
+                    parsimonyScoreToDescendants = this.scoreToDescendants(speciesIndex);
+                } else {
+                    int flippedTrait = states.getTraitFlippedAt(i);
+                    parsimonyScoreToDescendants -= this.scoreToDescendants(speciesIndex,
+                        flippedTrait);
+                    TraitBits.flip(present, flippedTrait);
+                    parsimonyScoreToDescendants += this.scoreToDescendants(speciesIndex,
+                        flippedTrait);
+                }
+                if (this.assign(speciesIndex, i, parsimonyScoreToDescendants)) {
+                    this.searchFrom(speciesIndex);
+                }
+            }
+        }
+
+        /**
+         * This method records the trait state of an ancestor node and scores the partial tree.
+         * The bits of the trait state must already be in assignedPresent.
+         * @param speciesIndex The index of the ancestor node.
+         * @param stateIndex The position of the trait state in its possible trait states.
+         * @param parsimonyScoreToDescendants The parsimony score of the ancestor node to its
+         *      descendants.
+         * @return True if the trees below this assignment still have to be searched, false if the
+         *      assignment was pruned or completed a tree.
+         */
+        private boolean assign(int speciesIndex, long stateIndex,
+            int parsimonyScoreToDescendants) {
+            this.traitStateIndices[speciesIndex] = stateIndex;
+            progress.nodeExplored();
+
+            int currParsimonyScore =
+                this.partialParsimonyScores[speciesIndex + 1] + parsimonyScoreToDescendants;
+            this.partialParsimonyScores[speciesIndex] = currParsimonyScore;
+
+            if (speciesIndex == 0) {
+                if (currParsimonyScore <= smallestParsimonyScore.get()) {
+                    recordTree(currParsimonyScore, this.traitStateIndices);
+                }
+                return false;
+            }
+            final int SMALLEST_PARSIMONY_SCORE = smallestParsimonyScore.get();
+            if (currParsimonyScore >= SMALLEST_PARSIMONY_SCORE) {
+                progress.pruned();
+                return false;
+            }
+            if (currParsimonyScore + this.taskLowerBound.calculate(speciesIndex,
+                this.assignedPresent) > SMALLEST_PARSIMONY_SCORE) {
+                progress.pruned();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * This method counts the traits that differ between an assigned ancestor node and its
+         * descendants.
+         * @param speciesIndex The index of the ancestor node.
+         * @return The number of traits that differ, summed over both descendants.
+         */
+        private int scoreToDescendants(int speciesIndex) {
+            int parsimonyScore = 0;
+            for (int i = 0; i < 2; i++) {
+                int descendantIndex = i == 0 ? lowerBound.getLeftDescendantIndex(speciesIndex)
+                    : lowerBound.getRightDescendantIndex(speciesIndex);
+                Species descendant = ancestorNodes[speciesIndex].getDescendants()[i];
+                parsimonyScore += TraitBits.countDifferences(this.assignedPresent[speciesIndex],
+                    null, this.presentBitsOf(descendantIndex, descendant),
+                    descendantIndex >= 0 ? null : descendant.getUnknownTraitBits(), numberOfTraits);
+            }
+            return parsimonyScore;
+        }
+
+        /**
+         * This method counts the descendants of an assigned ancestor node whose value of a trait
+         * differs from the ancestor node.
+         * @param speciesIndex The index of the ancestor node.
+         * @param trait The index of the trait.
+         * @return The number of descendants (0, 1 or 2) whose value of the trait differs.
+         */
+        private int scoreToDescendants(int speciesIndex, int trait) {
+            int parsimonyScore = 0;
+            for (int i = 0; i < 2; i++) {
+                int descendantIndex = i == 0 ? lowerBound.getLeftDescendantIndex(speciesIndex)
+                    : lowerBound.getRightDescendantIndex(speciesIndex);
+                Species descendant = ancestorNodes[speciesIndex].getDescendants()[i];
+                if (TraitBits.differs(this.assignedPresent[speciesIndex], null,
+                    this.presentBitsOf(descendantIndex, descendant),
+                    descendantIndex >= 0 ? null : descendant.getUnknownTraitBits(), trait)) {
+                    parsimonyScore++;
+                }
+            }
+            return parsimonyScore;
+        }
+
+        /**
+         * This method returns the present trait bits of a descendant.
+         * @param descendantIndex The index of the descendant, -1 if it is an initial species.
+         * @param descendant The descendant.
+         * @return The present trait bits assigned by this task, or of the initial species.
+         */
+        private long[] presentBitsOf(int descendantIndex, Species descendant) {
+            return descendantIndex >= 0 ? this.assignedPresent[descendantIndex]
+                : descendant.getTraitBits();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 
 package phylogenetics;
 
-import java.util.ArrayList;
 
 ///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
 //
@@ -22,13 +21,74 @@ import java.util.ArrayList;
  * This class contains the methods responsible for determining the maximum parsimony tree based
  * off of the trees ancestor nodes and their respective possible trait states.
  *
+ * A Parsimony object solves a single tree and keeps the state of its search in its own fields, so
+ * different trees can be solved at the same time on different threads. A tree should only be
+ * solved by one Parsimony object at a time, as solving changes the traits of its ancestor nodes.
+ *
  * @author Krischan Woehrer
  */
 public class Parsimony {
+    // Time between progress reports the command line interface prints while the backtracking
+    // search runs, solvers print no progress unless setProgressReportInterval is called
+    public static final long PROGRESS_REPORT_INTERVAL_MILLIS = 10_000;
+
+    private final RootedTree tree;
+    private final Species[] ancestorNodes;
+    // Positions of trait states in the enumeration of each ancestor nodes possible trait states
+    private long[] indicesOfAncestorsTraitStatesInMaximumParsimonyTree;
+    private long[] indiciesOfAncestorsTraitStatesTracker;
+    // The present trait bits of the trait state of each ancestor node being explored
+    private long[][] currentTraitStateBits;
+    private int smallestParsimonyScore;
+    // partialParsimonyScores[i] is the parsimony score of the edges from the ancestor nodes at
+    // index i and later to their descendants, for the trait states currently being explored
+    private int[] partialParsimonyScores;
+    private ParsimonyLowerBound remainingScoreLowerBound;
+    private long progressReportIntervalMillis = 0;
+    // Costs of the changes of each trait used by the SANKOFF engine, null if every change costs 1
+    private StepCosts stepCosts;
+    private volatile SearchProgress progress;
+    // Result of the most recent solve, for the deprecated getParsimonyScoreOfTree
+    private static volatile ParsimonyResult mostRecentResult;
+
+    /**
+     * Constructor method that creates a solver for a rooted tree.
+     * @param tree A rooted tree containining species and their ancestors.
+     */
+    public Parsimony(RootedTree tree) {
+        this.tree = tree;
+        this.ancestorNodes = new Species[tree.size() - tree.getInitialSpecies().size()];
+        // Inserts all ancestor nodes into the species array ancestorNodes
+        findAncestorNodes(tree.getRoot(), this.ancestorNodes, 0);
+    }
 
-    private static int[] indicesOfAncestorsTraitStatesInMaximumParsimonyTree;
-    private static int[] indiciesOfAncestorsTraitStatesTracker;
-    private static int smallestParsimonyScore;
+    /**
+     * This method takes a rooted tree and determines the optimal trait states of its ancestor nodes
+     * using the specified parsimony engine.
+     * @see Parsimony.solve
+     * 
+     * @param tree A rooted tree containining species and their ancestors.
+     * @param engine The algorithm used to find the optimal trait states.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree, ParsimonyEngine engine) {
+        return new Parsimony(tree).solve(engine).getParsimonyScore();
+    }
+
+    /**
+     * This method takes a rooted tree and determines the optimal trait states of its ancestor nodes
+     * using the specified parsimony engine and number of threads.
+     * @see Parsimony.solve
+     * 
+     * @param tree A rooted tree containining species and their ancestors.
+     * @param engine The algorithm used to find the optimal trait states.
+     * @param parallelism The number of threads used by parallel engines.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree, ParsimonyEngine engine,
+        int parallelism) {
+        return new Parsimony(tree).solve(engine, parallelism).getParsimonyScore();
+    }
 
     /**
      * This method takes a rooted tree with ancestor nodes that have an undetermined trait state and
@@ -38,27 +98,198 @@ public class Parsimony {
      * @return The parsimony score of the maximum parsimony tree.
      */
     public static int findMostParsimoniousTree(RootedTree tree) {
-        int numOfAncestors = tree.size() - tree.getInitialSpecies().size();
-        Species[] ancestorNodes = new Species[numOfAncestors];
-        indicesOfAncestorsTraitStatesInMaximumParsimonyTree = new int[numOfAncestors];
-        indiciesOfAncestorsTraitStatesTracker = new int[numOfAncestors];
-        smallestParsimonyScore = Integer.MAX_VALUE;
+        return findMostParsimoniousTree(tree, ParsimonyEngine.BACKTRACKING);
+    }
+
+    /**
+     * This method determines the optimal trait states of the ancestor nodes of the tree using the
+     * specified parsimony engine. Parallel engines use the common ForkJoinPool or every processor.
+     * 
+     * @param engine The algorithm used to find the optimal trait states.
+     * @return The parsimony score and trait states of the maximum parsimony tree.
+     */
+    public ParsimonyResult solve(ParsimonyEngine engine) {
+        return this.solve(engine, 0);
+    }
+
+    /**
+     * This method determines the optimal trait states of the ancestor nodes of the tree using the
+     * specified parsimony engine and number of threads. The traits of the ancestor nodes are set
+     * to the optimal trait states and the parsimony score is stored in the tree.
+     * 
+     * @param engine The algorithm used to find the optimal trait states.
+     * @param parallelism The number of threads used by parallel engines. Engines that do not run
+     *      in parallel ignore it. Less than 1 uses the common ForkJoinPool or every processor.
+     * @return The parsimony score and trait states of the maximum parsimony tree.
+     */
+    public ParsimonyResult solve(ParsimonyEngine engine, int parallelism) {
+        SearchProgress searchProgress = null;
+        int parsimonyScore;
+        switch (engine) {
+            case FITCH:
+                parsimonyScore = FitchParsimony.findMostParsimoniousTree(this.tree);
+                break;
+            case PARALLEL_COLUMNS:
+                parsimonyScore = parallelism < 1
+                    ? ColumnParsimony.findMostParsimoniousTree(this.tree)
+                    : ColumnParsimony.findMostParsimoniousTree(this.tree, parallelism);
+                break;
+            case SANKOFF:
+                parsimonyScore = SankoffParsimony.findMostParsimoniousTree(this.tree,
+                    this.stepCosts != null ? this.stepCosts : new StepCosts(
+                        this.tree.getInitialSpecies().get(0).getNumberOfTraits()));
+                break;
+            case PARALLEL_BACKTRACKING:
+                parsimonyScore = this.searchInParallel(parallelism < 1
+                    ? Runtime.getRuntime().availableProcessors() : parallelism);
+                searchProgress = this.progress;
+                break;
+            case BACKTRACKING:
+            default:
+                parsimonyScore = this.search();
+                searchProgress = this.progress;
+                break;
+        }
+        this.tree.setParsimonyScore(parsimonyScore);
+        ParsimonyResult result = new ParsimonyResult(this.tree, engine, parsimonyScore,
+            this.ancestorNodes, searchProgress);
+        mostRecentResult = result;
+        return result;
+    }
+
+    /**
+     * This method is used to get the parsimony score of the tree after findMostParsimoniousTree method
+     * has been called somewhere else in the program.
+     * @deprecated When several trees are solved, possibly at the same time, this is only the score
+     *      of the most recently solved tree. Use the ParsimonyResult returned by solve, or
+     *      RootedTree.getParsimonyScore, instead.
+     * @return The parsimony score of the most recently solved tree, 0 if no tree was solved.
+     */
+    @Deprecated
+    public static int getParsimonyScoreOfTree() {
+        ParsimonyResult result = mostRecentResult;
+        return result == null ? 0 : result.getParsimonyScore();
+    }
+
+    /**
+     * This is a mutator method that changes the costs of the changes of each trait used by the
+     * SANKOFF engine. Other engines ignore them.
+     * @param stepCosts The step costs, or null for every change to cost 1.
+     */
+    public void setStepCosts(StepCosts stepCosts) {
+        this.stepCosts = stepCosts;
+    }
+
+    /**
+     * This is a mutator method that changes how often the progress of the backtracking search is
+     * printed. By default no progress is printed and no reporter thread is started.
+     * @param intervalMillis The time between progress reports in milliseconds, 0 or less to not
+     *      print progress.
+     */
+    public void setProgressReportInterval(long intervalMillis) {
+        this.progressReportIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * This method returns the progress counters of the current or most recent backtracking
+     * search. The counters may be read from another thread while the search is running.
+     * @return The progress counters of the backtracking search, null if no search has started.
+     */
+    public SearchProgress getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * This method creates the progress counters of a search and starts reporting them.
+     */
+    private void startProgress() {
+        this.progress = new SearchProgress();
+        this.progress.scoreFound(this.smallestParsimonyScore);
+        if (this.progressReportIntervalMillis > 0) {
+            this.progress.startReporter(this.progressReportIntervalMillis, System.out);
+        }
+    }
+
+    /**
+     * This method stops the progress counters of a search.
+     */
+    private void stopProgress() {
+        this.progress.finished();
+        this.progress.stopReporter();
+    }
+
+    /**
+     * This method determines the optimal trait states by running the backtracking search on
+     * multiple threads. The species of the tree are only changed once the search has finished.
+     * @see ParallelBacktracking
+     * 
+     * @param parallelism The number of threads used to search.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    private int searchInParallel(int parallelism) {
+        this.indicesOfAncestorsTraitStatesInMaximumParsimonyTree =
+            new long[this.ancestorNodes.length];
+        this.smallestParsimonyScore = Integer.MAX_VALUE;
+
+        // The score of the most likely trait states is the initial bound of the search
+        this.maximumLikelyHoodTraitStates(this.ancestorNodes);
+
+        this.startProgress();
+        ParallelBacktracking search = new ParallelBacktracking(this.ancestorNodes,
+            this.smallestParsimonyScore, this.progress);
+        long[] optimalTraitStateIndices;
+        try {
+            optimalTraitStateIndices = search.search(parallelism);
+        } finally {
+            this.stopProgress();
+        }
+        // If no tree scores as well as the most likely trait states, they are kept
+        if (optimalTraitStateIndices != null) {
+            this.indicesOfAncestorsTraitStatesInMaximumParsimonyTree = optimalTraitStateIndices;
+            this.changeTreeTraitsToMinPars(this.ancestorNodes);
+            this.smallestParsimonyScore = search.getSmallestParsimonyScore();
+        }
+
+        return this.smallestParsimonyScore;
+    }
+
+    /**
+     * This method takes the ancestor nodes that have an undetermined trait state and determines
+     * the optimal trait states that will result in maximum parsimony of the tree.
+     * 
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    private int search() {
+        final int NUM_OF_ANCESTORS = this.ancestorNodes.length;
+        this.indicesOfAncestorsTraitStatesInMaximumParsimonyTree = new long[NUM_OF_ANCESTORS];
+        this.indiciesOfAncestorsTraitStatesTracker = new long[NUM_OF_ANCESTORS];
+        this.smallestParsimonyScore = Integer.MAX_VALUE;
 
-        // Inserts all ancestor nodes into the species array ancestorNodes
-        findAncestorNodes(tree.getRoot(), ancestorNodes, 0);
         // Create a hypothesis of what best state could be based off of prevalence of traits of
         // initial descendants
         // Note: This will not find the most parsiminious tree but drastically reduces the time to
         // calculate the most parsimonious tree by accelerating the rate at which the backtracking
         // algorithm performs
-        maximumLikelyHoodTraitStates(ancestorNodes);
+        this.maximumLikelyHoodTraitStates(this.ancestorNodes);
 
         // Finds optimal trait states of ancestor nodes
-        findOptimalTraitStates(numOfAncestors, ancestorNodes);
+        this.partialParsimonyScores = new int[NUM_OF_ANCESTORS + 1];
+        this.currentTraitStateBits = new long[NUM_OF_ANCESTORS][];
+        for (int i = 0; i < NUM_OF_ANCESTORS; i++) {
+            this.currentTraitStateBits[i] =
+                new long[TraitBits.numberOfWords(this.ancestorNodes[i].getNumberOfTraits())];
+        }
+        this.remainingScoreLowerBound = new ParsimonyLowerBound(this.ancestorNodes);
+        this.startProgress();
+        try {
+            this.findOptimalTraitStates(NUM_OF_ANCESTORS, this.ancestorNodes);
+        } finally {
+            this.stopProgress();
+        }
         // Changes the actual trait array in the species object to its optimal configuration
-        changeTreeTraitsToMinPars(ancestorNodes);
+        this.changeTreeTraitsToMinPars(this.ancestorNodes);
 
-        return smallestParsimonyScore;
+        return this.smallestParsimonyScore;
     }
 
     /**
@@ -95,13 +326,18 @@ public class Parsimony {
      * off of the initial descendants (at tree instantation) trait values.
      * @param ancestorNodes An array containing all ancestor nodes of the tree.
      */
-    private static void maximumLikelyHoodTraitStates(Species[] ancestorNodes) {
+    private void maximumLikelyHoodTraitStates(Species[] ancestorNodes) {
         // Can only determine the traits in this way for an ancestor node with a height of greater
         // than 3 as these ancestor nodes have at least 3 or more initial descendant species.
         for (int i = 0; i < ancestorNodes.length; i++) {
             if (ancestorNodes[i].getHeight() > 2) {
                 // Finds likely trait state
                 int[] likelyTraitState = findLikelyTraitState(ancestorNodes[i]);
+                // Traits shared by both descendants keep their shared value, so the likely trait
+                // state is one of the possible trait states and can seed the search
+                PossibleTraitStates possibleTraitStates = ancestorNodes[i].getPossibleTraitStates();
+                likelyTraitState = possibleTraitStates
+                    .getState(possibleTraitStates.closestIndexOf(likelyTraitState));
                 ancestorNodes[i].setTraits(likelyTraitState);
                 // Matches trait state to a possible trait state and returns index of that possible
                 // trait state.
@@ -119,14 +355,13 @@ public class Parsimony {
         // of the ancestor of this ancestor node, we avoid adding another an extra mutation/parsimony score.
         for (int i = 0; i < ancestorNodes.length; i++) {
             if (ancestorNodes[i].getHeight() == 2) {
-                int[] currAncestorNodeTraits = ancestorNodes[i].getTraits();
-                for (int j = 0; j < currAncestorNodeTraits.length; j++) {
-                    // Replaces any -1 traits with the ancestors (of this node) trait value at that
-                    // index
-                    if (currAncestorNodeTraits[j] == -1) {
-                        currAncestorNodeTraits[j] = ancestorNodes[i].getAncestor().getTraits()[j];
-                    }
-                }
+                // Replaces any variable traits with the ancestors (of this node) trait value at
+                // that index. A root with a height of 2 has no ancestor and keeps them absent.
+                PossibleTraitStates possibleTraitStates = ancestorNodes[i].getPossibleTraitStates();
+                Species ancestor = ancestorNodes[i].getAncestor();
+                int[] currAncestorNodeTraits = possibleTraitStates.getState(ancestor == null ? 0
+                    : possibleTraitStates.closestIndexOf(ancestor.getTraits()));
+                ancestorNodes[i].setTraits(currAncestorNodeTraits);
                 // Matches trait state to a possible trait state and returns index of that possible
                 // trait state
                 // Adds this index to its appropriate index in indexOfMinimumParsimonyTree
@@ -140,91 +375,38 @@ public class Parsimony {
 
     /**
      * This method finds the most likely trait state of an ancestor node based off of its descendants that
-     * were initial species entered at tree instantiation.
+     * were initial species entered at tree instantiation. The counts of descendants with each trait
+     * present are cached on the ancestor node, so no descendants are visited.
      * @param ancestor An ancestor node species.
      * @return An int array that contains the most likely trait state.
      */
     private static int[] findLikelyTraitState(Species ancestor) {
-        ArrayList<Species> initialSpeciesThatAreDescendants = new ArrayList<Species>();
-        getInitialSpeciesThatAreDescendants(ancestor, initialSpeciesThatAreDescendants);
-
-        double[] maximumLikelyhoodTraitStateDbl = new double[ancestor.getTraits().length];
-        int[] maximumLikelyhoodTraitStateInt = new int[ancestor.getTraits().length];
-
-        // Adds the value of all traits of all initial species that are descendants of the ancestor
-        for (int i = 0; i < initialSpeciesThatAreDescendants.size(); i++) {
-            Species currentDescendant = initialSpeciesThatAreDescendants.get(i);
-            int[] currentDescendantTraits = currentDescendant.getTraits();
-
-            for (int j = 0; j < currentDescendantTraits.length; j++) {
-                maximumLikelyhoodTraitStateDbl[j] += currentDescendantTraits[j];
-            }
-        }
+        final int NUMBER_OF_INITIAL_DESCENDANTS = ancestor.getNumberOfInitialDescendants();
+        int[] traitPresenceCounts = ancestor.getTraitPresenceCounts();
+        int[] maximumLikelyhoodTraitState = new int[traitPresenceCounts.length];
 
         // Calculates if the traits are more likely to be present(1) or absent (0) in ancestor
-        for (int i = 0; i < maximumLikelyhoodTraitStateDbl.length; i++) {
-            maximumLikelyhoodTraitStateDbl[i] /= initialSpeciesThatAreDescendants.size();
-
-            // If most descendants have trait present
-            if (maximumLikelyhoodTraitStateDbl[i] > 0.5) {
-                maximumLikelyhoodTraitStateInt[i] = 1;
-            } // If most descendants have trait absent or absence/presence is equal.
-            else if (maximumLikelyhoodTraitStateDbl[i] <= 0.5) {
-                maximumLikelyhoodTraitStateInt[i] = 0;
+        for (int i = 0; i < traitPresenceCounts.length; i++) {
+            // If most descendants have trait present. If most descendants have trait absent or
+            // absence/presence is equal the trait stays absent.
+            if (2 * traitPresenceCounts[i] > NUMBER_OF_INITIAL_DESCENDANTS) {
+                maximumLikelyhoodTraitState[i] = 1;
             }
         }
 
-        return maximumLikelyhoodTraitStateInt;
-    }
-
-
-
-    /**
-     * This recursive method determines all descendants, of the provided ancestor node, that were initial species entered
-     * at rooted tree instantiation. It does so by looking at all direct and indirect descendants of this species
-     * and placing them in the provided array list if their height is equal to 1.
-     * @param ancestor An ancestor node(species).
-     * @param initSpeciesThatAreDescendants An empty array list that will contain all initial species that
-     *      are descendants of this species.
-     */
-    private static void getInitialSpeciesThatAreDescendants(Species ancestor,
-        ArrayList<Species> initialSpeciesThatAreDescendants) {
-        // gets descendants of each ancestor node
-        Species leftDescendant = ancestor.getDescendants()[0];
-        Species rightDescendant = ancestor.getDescendants()[1];
-
-        // If left descendant is an ancestor node then recursively call this method to find its
-        // descendants
-        if (leftDescendant.getHeight() != 1) {
-            getInitialSpeciesThatAreDescendants(leftDescendant, initialSpeciesThatAreDescendants);
-        } else {
-            initialSpeciesThatAreDescendants.add(leftDescendant);
-        }
-
-        // If right descendant is an ancestor node then recursively call this method to find its
-        // descendants
-        if (rightDescendant.getHeight() != 1) {
-            getInitialSpeciesThatAreDescendants(rightDescendant, initialSpeciesThatAreDescendants);
-        } else {
-            initialSpeciesThatAreDescendants.add(rightDescendant);
-        }
+        return maximumLikelyhoodTraitState;
     }
 
     /**
-     * This method finds the index of a specified trait state in a species possible trait state array.
+     * This method finds the index of a specified trait state in a species possible trait states.
+     * @see PossibleTraitStates.indexOf for how the index is found in O(traits).
      * @param traitState The specified trait state.
      * @param species The species which contains its associated trait states.
-     * @return Returns the index of the possible trait state that is identical to the specified trait state.
+     * @return Returns the index of the possible trait state that is identical to the specified
+     *      trait state, or -1 if it is not a possible trait state.
      */
-    private static int getTraitStateIndex(int[] traitState, Species species) {
-
-        for (int i = 0; i < species.getPossibleTraitStates().length; i++) {
-            if (traitState.equals(species.getPossibleTraitStates()[i])) {
-                return i;
-            }
-        }
-
-        return -1;
+    private static long getTraitStateIndex(int[] traitState, Species species) {
+        return species.getPossibleTraitStates().indexOf(traitState);
     }
 
 
@@ -237,7 +419,7 @@ public class Parsimony {
      * @param speciesArr The array of ancestor nodes.
      * @return The species index.
      */
-    private static void findOptimalTraitStates(int speciesIndex, Species[] speciesArr) {
+    private void findOptimalTraitStates(int speciesIndex, Species[] speciesArr) {
         speciesIndex--;
 
         // Exit condition to the recursive function.
@@ -250,13 +432,32 @@ public class Parsimony {
 
         // Gets the species reference value from the speciesArr array
         Species currentSpecies = speciesArr[speciesIndex];
+        PossibleTraitStates possibleTraitStates = currentSpecies.getPossibleTraitStates();
+        int parsimonyScoreToDescendants = 0;
         // Loops through each possible trait for the current species in the speciesArr at
-        // speciesIndex
-        for (int i = 0; i < currentSpecies.getPossibleTraitStates().length; i++) {
-            currentSpecies.setTraits(currentSpecies.getPossibleTraitStates()[i]);
+        // speciesIndex. Each trait state differs from the one before it in a single trait, which
+        // is changed in place.
+        for (long i = 0; i < possibleTraitStates.size(); i++) {
+            if (i == 0) {
+                possibleTraitStates.writeStatePresentBits(0, currentTraitStateBits[speciesIndex]);
+                currentSpecies.setTraitBits(currentTraitStateBits[speciesIndex], null);
+                parsimonyScoreToDescendants = currentSpecies.getParsimonyScoreToDescendants();
+            } else {
+                int flippedTrait = possibleTraitStates.getTraitFlippedAt(i);
+                parsimonyScoreToDescendants -=
+                    currentSpecies.getParsimonyScoreToDescendants(flippedTrait);
+                currentSpecies.flipTrait(flippedTrait);
+                parsimonyScoreToDescendants +=
+                    currentSpecies.getParsimonyScoreToDescendants(flippedTrait);
+            }
             indiciesOfAncestorsTraitStatesTracker[speciesIndex] = i;
+            progress.nodeExplored();
 
-            int currParsimonyScore = getParsimonyScore(speciesArr, speciesIndex);
+            // Only the edges from this species to its descendants changed. The ancestor nodes after
+            // it are not changed again until this species is, so their score is reused.
+            int currParsimonyScore =
+                partialParsimonyScores[speciesIndex + 1] + parsimonyScoreToDescendants;
+            partialParsimonyScores[speciesIndex] = currParsimonyScore;
             // Calculate parsimony and store the parsimony and its related data into the method
             // fields if and only if this is the most parsiminious tree seen so far.
             // Only occurs when the method reaches the root of the tree and rest of ancestor nodes
@@ -267,21 +468,21 @@ public class Parsimony {
                 if (currParsimonyScore <= smallestParsimonyScore) {
                     smallestParsimonyScore = currParsimonyScore;
                     indicesOfAncestorsTraitStatesInMaximumParsimonyTree = indiciesOfAncestorsTraitStatesTracker.clone();
-                    System.out.println("~~!!~~!!~~!!~~!!New Minimum Parsimony Tree found at index " + i + " of the root species!!~~!!~~!!~~!!~~");
+                    progress.scoreFound(currParsimonyScore);
                 }
             }
             // Allows for backtracking, if at any point the partial tree has a parsimony score
             // greater than the current minimum parsimony score of a full tree, stop iterating this path and
             // go to the next one.
-            if (currParsimonyScore >= smallestParsimonyScore) {
+            // The ancestor nodes before speciesIndex still have to be assigned, and will add at
+            // least their lower bound to the score. Trees that tie the minimum are still explored.
+            if (currParsimonyScore >= smallestParsimonyScore || currParsimonyScore
+                + remainingScoreLowerBound.calculate(speciesIndex) > smallestParsimonyScore) {
+                if (speciesIndex > 0) {
+                    progress.pruned();
+                }
                 continue;
             }
-            // Displays program finding optimal trait states
-            for (int j = (speciesArr.length - 1 - speciesIndex); j > 0; j--) {
-                System.out.print("\t");
-            }
-            System.out.println("Calculating Parsimony for Trait State " + i + " of species index "
-                + speciesIndex + " and all subsequent trees");
 
             // Recursive method call to determine the next ancestor nodes traits in the current tree
             findOptimalTraitStates(speciesIndex, speciesArr);
@@ -315,21 +516,12 @@ public class Parsimony {
      * This method changes the actual trait states of the ancestor nodes to the states determined to have minimum parsimony.
      * @param ancestorNodes
      */
-    private static void changeTreeTraitsToMinPars(Species[] ancestorNodes) {
+    private void changeTreeTraitsToMinPars(Species[] ancestorNodes) {
         for (int i = 0; i < ancestorNodes.length; i++) {
-            int[] optimalTraits =
-                ancestorNodes[i].getPossibleTraitStates()[indicesOfAncestorsTraitStatesInMaximumParsimonyTree[i]];
+            int[] optimalTraits = ancestorNodes[i].getPossibleTraitStates()
+                .getState(indicesOfAncestorsTraitStatesInMaximumParsimonyTree[i]);
             ancestorNodes[i].setTraits(optimalTraits);
         }
     }
 
-    /**
-     * This method is used to get the parsimony score of the tree after findMostParsimoniousTree method
-     * has been called somewhere else in the program.
-     * @return The parsimony score of the most parsimonious tree.
-     */
-    public static int getParsimonyScoreOfTree() {
-        return smallestParsimonyScore;
-    }
-
 }
@@ -0,0 +1,73 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This enum lists the algorithms that can be used to determine the trait states of the ancestor
+ * nodes of a rooted tree. Every engine finds the same minimum parsimony score, they only differ in
+ * how long they take to find it. SANKOFF finds the same score unless changes are given different
+ * costs.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public enum ParsimonyEngine {
+    /**
+     * Exhaustive backtracking over every possible trait state of every ancestor node.
+     * @see Parsimony.findMostParsimoniousTree
+     */
+    BACKTRACKING,
+
+    /**
+     * The backtracking search with the first ancestor nodes it assigns split into tasks that are
+     * searched in parallel on a ForkJoinPool.
+     * @see ParallelBacktracking.search
+     */
+    PARALLEL_BACKTRACKING,
+
+    /**
+     * Fitch's small parsimony algorithm. Runs in O(nodes * traits).
+     * @see FitchParsimony.findMostParsimoniousTree
+     */
+    FITCH,
+
+    /**
+     * Fitch's small parsimony algorithm solved one trait at a time, with ranges of traits solved in
+     * parallel on a ForkJoinPool.
+     * @see ColumnParsimony.findMostParsimoniousTree
+     */
+    PARALLEL_COLUMNS,
+
+    /**
+     * Sankoff's weighted parsimony algorithm, where each trait has its own cost of being gained
+     * and lost. Runs in O(nodes * traits * states^2).
+     * @see SankoffParsimony.findMostParsimoniousTree
+     */
+    SANKOFF;
+
+    /**
+     * This method determines if the engine needs every ancestor node to have its possible trait
+     * states generated before it runs.
+     * @see RootedTree.generatePossibleAncestorTraits
+     * @return True if the possible trait states of each ancestor node must be generated.
+     */
+    public boolean requiresPossibleTraitStates() {
+        return this == BACKTRACKING || this == PARALLEL_BACKTRACKING;
+    }
+}
@@ -0,0 +1,300 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Fitch, W. M. (1971). Toward defining the course of evolution: minimum change for a specific
+// tree topology. Systematic Zoology, 20(4), 406-416.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.IdentityHashMap;
+
+/**
+ * This class calculates a lower bound on the parsimony score of the ancestor nodes that have not
+ * been assigned a trait state yet during the backtracking search.
+ *
+ * Ancestor nodes are stored in pre-order, so the unassigned nodes (every index before the node
+ * being explored) form the top part of the tree. Their descendants that are assigned ancestor
+ * nodes or initial species already have fixed trait values. The Fitch algorithm is run on the top
+ * part of the tree with those descendants as its leaves. It finds the minimum number of changes
+ * when every unassigned trait may be present or absent, which is never more than the cost of any
+ * trait state the search can still pick, so the bound never prunes an optimal tree.
+ *
+ * The subtree of an unassigned ancestor node that is not an ancestor of the node just assigned
+ * only contains unassigned nodes, as pre-order stores every subtree in a contiguous range. The
+ * Fitch value sets and score of those subtrees never change during the search, so they are
+ * calculated once. Each bound only runs Fitch along the path from the node just assigned to the
+ * root, in O(depth * words) instead of over every unassigned node.
+ *
+ * Ancestor nodes are never assigned an unknown trait, so an edge to an initial species with an
+ * unknown trait always costs one change and the species does not restrict the Fitch value set.
+ * Traits are solved 64 at a time, each value set is stored as a present and an absent bitset.
+ *
+ * @author Krischan Woehrer
+ */
+public class ParsimonyLowerBound {
+    private final int numberOfWords;
+    private final Species[] ancestorNodes;
+    // Index in ancestorNodes of the left/right descendant of each ancestor node, -1 for species
+    private final int[] leftDescendantIndices;
+    private final int[] rightDescendantIndices;
+    // Index in ancestorNodes of the ancestor of each ancestor node, -1 for the root
+    private final int[] ancestorIndices;
+    // Fitch value sets and score of the subtree of each ancestor node when none of it is assigned
+    private final long[][] unassignedPresentSets;
+    private final long[][] unassignedAbsentSets;
+    private final int[] unassignedScores;
+    // Fitch value sets of the node on the path to the root, changed by every bound
+    private final long[] pathPresentSet;
+    private final long[] pathAbsentSet;
+
+    /**
+     * Constructor method that prepares the lower bound for an array of ancestor nodes.
+     * @param ancestorNodes The ancestor nodes of a tree in pre-order, index 0 is the root.
+     */
+    public ParsimonyLowerBound(Species[] ancestorNodes) {
+        this.ancestorNodes = ancestorNodes;
+        this.numberOfWords = ancestorNodes.length == 0 ? 0
+            : TraitBits.numberOfWords(ancestorNodes[0].getNumberOfTraits());
+        this.leftDescendantIndices = new int[ancestorNodes.length];
+        this.rightDescendantIndices = new int[ancestorNodes.length];
+        this.ancestorIndices = new int[ancestorNodes.length];
+        this.unassignedPresentSets = new long[ancestorNodes.length][this.numberOfWords];
+        this.unassignedAbsentSets = new long[ancestorNodes.length][this.numberOfWords];
+        this.unassignedScores = new int[ancestorNodes.length];
+        this.pathPresentSet = new long[this.numberOfWords];
+        this.pathAbsentSet = new long[this.numberOfWords];
+
+        IdentityHashMap<Species, Integer> indices = new IdentityHashMap<Species, Integer>();
+        for (int i = 0; i < ancestorNodes.length; i++) {
+            indices.put(ancestorNodes[i], i);
+            this.ancestorIndices[i] = -1;
+        }
+        for (int i = 0; i < ancestorNodes.length; i++) {
+            Integer left = indices.get(ancestorNodes[i].getDescendants()[0]);
+            Integer right = indices.get(ancestorNodes[i].getDescendants()[1]);
+            this.leftDescendantIndices[i] = left == null ? -1 : left;
+            this.rightDescendantIndices[i] = right == null ? -1 : right;
+            if (left != null) {
+                this.ancestorIndices[left] = i;
+            }
+            if (right != null) {
+                this.ancestorIndices[right] = i;
+            }
+        }
+
+        // Descendants come after their ancestor in pre-order, so they are solved first
+        for (int i = ancestorNodes.length - 1; i >= 0; i--) {
+            long[] leftPresentSet = new long[this.numberOfWords];
+            long[] leftAbsentSet = new long[this.numberOfWords];
+            long[] rightPresentSet = new long[this.numberOfWords];
+            long[] rightAbsentSet = new long[this.numberOfWords];
+            int score = this.unassignedValueSets(this.leftDescendantIndices[i],
+                ancestorNodes[i].getDescendants()[0], leftPresentSet, leftAbsentSet);
+            score += this.unassignedValueSets(this.rightDescendantIndices[i],
+                ancestorNodes[i].getDescendants()[1], rightPresentSet, rightAbsentSet);
+            for (int word = 0; word < this.numberOfWords; word++) {
+                score += fitchWord(leftPresentSet[word], leftAbsentSet[word],
+                    rightPresentSet[word], rightAbsentSet[word], this.unassignedPresentSets[i],
+                    this.unassignedAbsentSets[i], word);
+            }
+            this.unassignedScores[i] = score;
+        }
+    }
+
+    /**
+     * Constructor method that creates a lower bound for the same ancestor nodes as another lower
+     * bound. The descendant indices and the value sets of unassigned subtrees are shared and only
+     * the value sets of the path are allocated, so each thread of a parallel search can have its
+     * own lower bound.
+     * @param lowerBound The lower bound to copy.
+     */
+    public ParsimonyLowerBound(ParsimonyLowerBound lowerBound) {
+        this.ancestorNodes = lowerBound.ancestorNodes;
+        this.numberOfWords = lowerBound.numberOfWords;
+        this.leftDescendantIndices = lowerBound.leftDescendantIndices;
+        this.rightDescendantIndices = lowerBound.rightDescendantIndices;
+        this.ancestorIndices = lowerBound.ancestorIndices;
+        this.unassignedPresentSets = lowerBound.unassignedPresentSets;
+        this.unassignedAbsentSets = lowerBound.unassignedAbsentSets;
+        this.unassignedScores = lowerBound.unassignedScores;
+        this.pathPresentSet = new long[this.numberOfWords];
+        this.pathAbsentSet = new long[this.numberOfWords];
+    }
+
+    /**
+     * This is an accessor method that returns the index of the left descendant of an ancestor node.
+     * @param index The index of the ancestor node.
+     * @return The index of its left descendant, -1 if the descendant is an initial species.
+     */
+    public int getLeftDescendantIndex(int index) {
+        return this.leftDescendantIndices[index];
+    }
+
+    /**
+     * This is an accessor method that returns the index of the right descendant of an ancestor
+     * node.
+     * @param index The index of the ancestor node.
+     * @return The index of its right descendant, -1 if the descendant is an initial species.
+     */
+    public int getRightDescendantIndex(int index) {
+        return this.rightDescendantIndices[index];
+    }
+
+    /**
+     * This method calculates the minimum number of changes on the edges from the unassigned
+     * ancestor nodes to their descendants, given the current traits of the assigned nodes.
+     * @param firstAssignedIndex The index of the first assigned ancestor node. Every ancestor node
+     *      before it is unassigned.
+     * @return A lower bound on the parsimony score of the unassigned ancestor nodes.
+     */
+    public int calculate(int firstAssignedIndex) {
+        return this.calculate(firstAssignedIndex, null);
+    }
+
+    /**
+     * This method calculates the minimum number of changes on the edges from the unassigned
+     * ancestor nodes to their descendants, with the traits of the assigned ancestor nodes given as
+     * bitsets instead of read from the species.
+     * @param firstAssignedIndex The index of the first assigned ancestor node. Every ancestor node
+     *      before it is unassigned.
+     * @param assignedPresent The present trait bits of every assigned ancestor node, by index.
+     *      If null the traits of the ancestor nodes are used.
+     * @return A lower bound on the parsimony score of the unassigned ancestor nodes.
+     */
+    public int calculate(int firstAssignedIndex, long[][] assignedPresent) {
+        long[] assignedBits = assignedPresent == null
+            ? this.ancestorNodes[firstAssignedIndex].getTraitBits()
+            : assignedPresent[firstAssignedIndex];
+        for (int word = 0; word < this.numberOfWords; word++) {
+            this.pathPresentSet[word] = assignedBits[word];
+            this.pathAbsentSet[word] = ~assignedBits[word];
+        }
+
+        int lowerBound = 0;
+        int current = firstAssignedIndex;
+        for (int ancestor = this.ancestorIndices[current]; ancestor >= 0;
+            ancestor = this.ancestorIndices[current]) {
+            boolean isLeft = this.leftDescendantIndices[ancestor] == current;
+            int siblingIndex = isLeft ? this.rightDescendantIndices[ancestor]
+                : this.leftDescendantIndices[ancestor];
+            Species sibling = this.ancestorNodes[ancestor].getDescendants()[isLeft ? 1 : 0];
+
+            // A sibling after the assigned node in pre-order is assigned, one before it is not
+            long[] siblingPresentBits = null;
+            if (siblingIndex > firstAssignedIndex) {
+                siblingPresentBits = assignedPresent == null ? sibling.getTraitBits()
+                    : assignedPresent[siblingIndex];
+            } else if (siblingIndex >= 0) {
+                lowerBound += this.unassignedScores[siblingIndex];
+            } else {
+                lowerBound += this.unknownTraitChanges(sibling);
+            }
+            for (int word = 0; word < this.numberOfWords; word++) {
+                long siblingPresent;
+                long siblingAbsent;
+                if (siblingPresentBits != null) {
+                    siblingPresent = siblingPresentBits[word];
+                    siblingAbsent = ~siblingPresent;
+                } else if (siblingIndex >= 0) {
+                    siblingPresent = this.unassignedPresentSets[siblingIndex][word];
+                    siblingAbsent = this.unassignedAbsentSets[siblingIndex][word];
+                } else {
+                    siblingPresent = initialSpeciesPresentSet(sibling, word);
+                    siblingAbsent = ~sibling.getTraitBits()[word];
+                }
+                lowerBound += fitchWord(this.pathPresentSet[word], this.pathAbsentSet[word],
+                    siblingPresent, siblingAbsent, this.pathPresentSet, this.pathAbsentSet, word);
+            }
+            current = ancestor;
+        }
+        return lowerBound;
+    }
+
+    /**
+     * This method finds the Fitch value sets of a descendant when none of the ancestor nodes are
+     * assigned.
+     * @param index The index of the descendant, -1 if it is an initial species.
+     * @param descendant The descendant.
+     * @param presentSet The array the present value set is written to.
+     * @param absentSet The array the absent value set is written to.
+     * @return The minimum number of changes in the subtree of the descendant, including the
+     *      changes to the unknown traits of an initial species.
+     */
+    private int unassignedValueSets(int index, Species descendant, long[] presentSet,
+        long[] absentSet) {
+        for (int word = 0; word < this.numberOfWords; word++) {
+            if (index >= 0) {
+                presentSet[word] = this.unassignedPresentSets[index][word];
+                absentSet[word] = this.unassignedAbsentSets[index][word];
+            } else {
+                presentSet[word] = initialSpeciesPresentSet(descendant, word);
+                absentSet[word] = ~descendant.getTraitBits()[word];
+            }
+        }
+        return index >= 0 ? this.unassignedScores[index] : this.unknownTraitChanges(descendant);
+    }
+
+    /**
+     * This method counts the unknown traits of an initial species, as its ancestor node is always
+     * assigned a present or absent value that differs from them.
+     * @param species The initial species.
+     * @return The number of unknown traits.
+     */
+    private int unknownTraitChanges(Species species) {
+        long[] unknownBits = species.getUnknownTraitBits();
+        int changes = 0;
+        for (int word = 0; unknownBits != null && word < this.numberOfWords; word++) {
+            changes += Long.bitCount(unknownBits[word]);
+        }
+        return changes;
+    }
+
+    /**
+     * This method returns a word of the present value set of an initial species. An unknown trait
+     * can be present or absent in the ancestor node at the same cost, so it is in both sets.
+     * @param species The initial species.
+     * @param word The index of the word.
+     * @return The traits of the word that may be present.
+     */
+    private static long initialSpeciesPresentSet(Species species, int word) {
+        long[] unknownBits = species.getUnknownTraitBits();
+        return species.getTraitBits()[word] | (unknownBits == null ? 0 : unknownBits[word]);
+    }
+
+    /**
+     * This method combines a word of the Fitch value sets of two descendants into the value sets of
+     * their ancestor. Traits whose value sets do not intersect take the union and cost one change.
+     * Traits past the last trait are absent in every node so they never cost anything.
+     * @param leftPresent The present value set of the left descendant.
+     * @param leftAbsent The absent value set of the left descendant.
+     * @param rightPresent The present value set of the right descendant.
+     * @param rightAbsent The absent value set of the right descendant.
+     * @param presentSet The present value set the result is written to.
+     * @param absentSet The absent value set the result is written to.
+     * @param word The index of the word written.
+     * @return The number of traits of the word that cost a change.
+     */
+    private static int fitchWord(long leftPresent, long leftAbsent, long rightPresent,
+        long rightAbsent, long[] presentSet, long[] absentSet, int word) {
+        long presentIntersection = leftPresent & rightPresent;
+        long absentIntersection = leftAbsent & rightAbsent;
+        long disjoint = ~(presentIntersection | absentIntersection);
+        presentSet[word] = presentIntersection | (disjoint & (leftPresent | rightPresent));
+        absentSet[word] = absentIntersection | (disjoint & (leftAbsent | rightAbsent));
+        return Long.bitCount(disjoint);
+    }
+}
@@ -0,0 +1,117 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class contains the result of determining the maximum parsimony tree of a rooted tree: the
+ * parsimony score and the trait states of every ancestor node. The trait states are copied when the
+ * result is created, so a result does not change if the tree is solved again and can be shared
+ * between threads.
+ *
+ * @see Parsimony.solve for how results are created.
+ * @author Krischan Woehrer
+ */
+public class ParsimonyResult {
+    private final RootedTree tree;
+    private final ParsimonyEngine engine;
+    private final int parsimonyScore;
+    private final Species[] ancestorNodes;
+    private final int[][] ancestorTraits;
+    private final SearchProgress progress;
+
+    /**
+     * Constructor method that creates a result from the current trait states of ancestor nodes.
+     * @param tree The tree that was solved.
+     * @param engine The algorithm used to find the trait states.
+     * @param parsimonyScore The parsimony score of the tree.
+     * @param ancestorNodes The ancestor nodes of the tree in pre-order, index 0 is the root.
+     * @param progress The progress counters of the search, null if the engine does not search.
+     */
+    public ParsimonyResult(RootedTree tree, ParsimonyEngine engine, int parsimonyScore,
+        Species[] ancestorNodes, SearchProgress progress) {
+        this.tree = tree;
+        this.engine = engine;
+        this.parsimonyScore = parsimonyScore;
+        this.ancestorNodes = ancestorNodes;
+        this.ancestorTraits = new int[ancestorNodes.length][];
+        for (int i = 0; i < ancestorNodes.length; i++) {
+            this.ancestorTraits[i] = ancestorNodes[i].getTraits().clone();
+        }
+        this.progress = progress;
+    }
+
+    /**
+     * This is an accessor method that returns the tree that was solved.
+     * @return The tree.
+     */
+    public RootedTree getTree() {
+        return this.tree;
+    }
+
+    /**
+     * This is an accessor method that returns the algorithm used to find the trait states.
+     * @return The parsimony engine.
+     */
+    public ParsimonyEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * This is an accessor method that returns the parsimony score of the tree.
+     * @return The parsimony score of the maximum parsimony tree.
+     */
+    public int getParsimonyScore() {
+        return this.parsimonyScore;
+    }
+
+    /**
+     * This is an accessor method that returns the number of ancestor nodes of the tree.
+     * @return The number of ancestor nodes.
+     */
+    public int getNumberOfAncestors() {
+        return this.ancestorNodes.length;
+    }
+
+    /**
+     * This is an accessor method that returns an ancestor node of the tree.
+     * @param index The index of the ancestor node in pre-order, 0 is the root.
+     * @return The ancestor node.
+     */
+    public Species getAncestor(int index) {
+        return this.ancestorNodes[index];
+    }
+
+    /**
+     * This is an accessor method that returns the trait states of an ancestor node in the maximum
+     * parsimony tree.
+     * @param index The index of the ancestor node in pre-order, 0 is the root.
+     * @return A copy of the trait states of the ancestor node.
+     */
+    public int[] getAncestorTraits(int index) {
+        return this.ancestorTraits[index].clone();
+    }
+
+    /**
+     * This is an accessor method that returns the progress counters of the search.
+     * @return The progress counters, null if the engine does not search.
+     */
+    public SearchProgress getProgress() {
+        return this.progress;
+    }
+}
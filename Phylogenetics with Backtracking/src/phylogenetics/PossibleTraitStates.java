@@ -0,0 +1,198 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class describes the possible trait states of an ancestor node without creating them.
+ * The possible trait states share a template: traits whose value is the same in both descendants
+ * are fixed, and every other trait is variable and may be 0 or 1. With k variable traits there are
+ * 2^k possible trait states, but only the template and the indices of the variable traits are
+ * stored.
+ *
+ * The states are enumerated in Gray code order: state 0 has every variable trait absent, and each
+ * state after it differs from the state before it in exactly one variable trait, so a search can
+ * change its current state in place one trait at a time. Variable trait b of the state at position
+ * p is bit b of p ^ (p >>> 1).
+ *
+ * @see Species.possibleStates for how the template is determined.
+ * @author Krischan Woehrer
+ */
+public class PossibleTraitStates {
+    // Largest number of variable traits, so the number of states fits in a long
+    public static final int MAXIMUM_VARIABLE_TRAITS = 62;
+
+    private final int numberOfTraits;
+    private final long[] templatePresentBits;
+    private final int[] variableTraits;
+
+    /**
+     * Constructor method that creates the possible trait states of a template.
+     * @param templateTraits An array of 0's, 1's and -1's, where -1 is a variable trait.
+     * @throws IllegalArgumentException If there are more than MAXIMUM_VARIABLE_TRAITS variable
+     *      traits.
+     */
+    public PossibleTraitStates(int[] templateTraits) {
+        int numberOfVariableTraits = 0;
+        for (int trait : templateTraits) {
+            if (trait == -1) {
+                numberOfVariableTraits++;
+            }
+        }
+        if (numberOfVariableTraits > MAXIMUM_VARIABLE_TRAITS) {
+            throw new IllegalArgumentException("An ancestor node has " + numberOfVariableTraits
+                + " variable traits, the maximum is " + MAXIMUM_VARIABLE_TRAITS + ".");
+        }
+
+        this.numberOfTraits = templateTraits.length;
+        this.templatePresentBits = TraitBits.packPresent(templateTraits);
+        this.variableTraits = new int[numberOfVariableTraits];
+        int b = 0;
+        for (int i = 0; i < templateTraits.length; i++) {
+            if (templateTraits[i] == -1) {
+                this.variableTraits[b++] = i;
+            }
+        }
+    }
+
+    /**
+     * This method returns the number of possible trait states.
+     * @return 2 to the power of the number of variable traits.
+     */
+    public long size() {
+        return 1L << this.variableTraits.length;
+    }
+
+    /**
+     * This is an accessor method that returns the number of variable traits.
+     * @return The number of variable traits.
+     */
+    public int getNumberOfVariableTraits() {
+        return this.variableTraits.length;
+    }
+
+    /**
+     * This is an accessor method that returns the index of a variable trait.
+     * @param b The number of the variable trait, from 0 to getNumberOfVariableTraits() - 1.
+     * @return The index of the trait in the trait array.
+     */
+    public int getVariableTrait(int b) {
+        return this.variableTraits[b];
+    }
+
+    /**
+     * This method returns the trait that changes between the state before a position and the
+     * state at the position.
+     * @param position A position from 1 to size() - 1.
+     * @return The index of the trait that changes.
+     */
+    public int getTraitFlippedAt(long position) {
+        return this.variableTraits[Long.numberOfTrailingZeros(position)];
+    }
+
+    /**
+     * This method finds the position of a trait state. The variable traits of the state are
+     * encoded directly as the bits of a Gray code, so no state is enumerated.
+     * @param traitState A trait array.
+     * @return The position of the state, or -1 if the trait array is not one of the possible
+     *      trait states.
+     */
+    public long indexOf(int[] traitState) {
+        if (traitState.length != this.numberOfTraits) {
+            return -1;
+        }
+        // Every fixed trait must match the template
+        int b = 0;
+        for (int i = 0; i < traitState.length; i++) {
+            if (b < this.variableTraits.length && this.variableTraits[b] == i) {
+                if (traitState[i] != 0 && traitState[i] != 1) {
+                    return -1;
+                }
+                b++;
+            } else if (traitState[i] != (TraitBits.isSet(this.templatePresentBits, i) ? 1 : 0)) {
+                return -1;
+            }
+        }
+        return this.closestIndexOf(traitState);
+    }
+
+    /**
+     * This method finds the position of the possible trait state whose variable traits have the
+     * same values as a trait array. The fixed traits of the trait array are ignored.
+     * @param traitState A trait array, a variable trait is present in the state if its value in
+     *      the trait array is 1.
+     * @return The position of the state.
+     */
+    public long closestIndexOf(int[] traitState) {
+        long grayCode = 0;
+        for (int b = 0; b < this.variableTraits.length; b++) {
+            if (traitState[this.variableTraits[b]] == 1) {
+                grayCode |= 1L << b;
+            }
+        }
+        // Converts the Gray code back to the position it is enumerated at
+        long position = grayCode;
+        for (int shift = 1; shift < Long.SIZE; shift <<= 1) {
+            position ^= position >>> shift;
+        }
+        return position;
+    }
+
+    /**
+     * This method creates the trait array of the state at a position.
+     * @param position A position from 0 to size() - 1.
+     * @return A new trait array of 0's and 1's.
+     */
+    public int[] getState(long position) {
+        long[] presentBits = new long[this.templatePresentBits.length];
+        this.writeStatePresentBits(position, presentBits);
+        return TraitBits.unpack(presentBits, null, this.numberOfTraits);
+    }
+
+    /**
+     * This method writes the present trait bits of the state at a position into a bitset.
+     * @param position A position from 0 to size() - 1.
+     * @param presentBits The bitset to write to, with TraitBits.numberOfWords(numberOfTraits) words.
+     * @throws IndexOutOfBoundsException If the position is not the position of a state.
+     */
+    public void writeStatePresentBits(long position, long[] presentBits) {
+        if (position < 0 || position >= this.size()) {
+            throw new IndexOutOfBoundsException("Trait state " + position + " out of bounds for "
+                + this.size() + " trait states");
+        }
+        System.arraycopy(this.templatePresentBits, 0, presentBits, 0,
+            this.templatePresentBits.length);
+        long grayCode = position ^ (position >>> 1);
+        while (grayCode != 0) {
+            TraitBits.set(presentBits,
+                this.variableTraits[Long.numberOfTrailingZeros(grayCode)]);
+            grayCode &= grayCode - 1;
+        }
+    }
+
+    /**
+     * This method creates the present trait bits of the state at a position.
+     * @param position A position from 0 to size() - 1.
+     * @return A new bitset with a bit set for every present trait of the state.
+     */
+    public long[] getStatePresentBits(long position) {
+        long[] presentBits = new long[this.templatePresentBits.length];
+        this.writeStatePresentBits(position, presentBits);
+        return presentBits;
+    }
+}
@@ -18,7 +18,13 @@ package phylogenetics;
 //
 /////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class is responsible for the creation of a rooted tree as well as methods pertaining to the
@@ -31,11 +37,15 @@ import java.util.ArrayList;
 public class RootedTree {
     private ArrayList<Species> speciesNodeList;
     private ArrayList<Species> initialSpeciesNodeList;
-    private ArrayList<ArrayList<Double>> initialDistanceMatrix;
+    private Species[] clusters;
+    private DistanceMatrix distanceMatrix;
     private boolean showParsimony;
+    private int parsimonyScore;
     private int size;
     private int width;
     private int branchLength;
+    // Records the columns written while the tree is measured, null while it is drawn
+    private ColumnExtents layoutExtents;
 
     /**
      * Default Constructor, If used this will return an error.
@@ -61,97 +71,158 @@ public class RootedTree {
      * @param speciesArr The species to be used as descendants in the phylogenetic tree
      */
     public RootedTree(Species[] speciesArr) {
+        this(speciesArr, ClusteringEngine.DISTANCE_HEAPS, Linkage.WPGMA);
+    }
+
+    /**
+     * Constructor that creates the binary tree through a UPGMA-Type algorithm, using the specified
+     * engine to find the two closest clusters before each merge.
+     * @see ClusteringEngine for the available engines, all engines build the same tree
+     * @param speciesArr The species to be used as descendants in the phylogenetic tree
+     * @param clusteringEngine The engine used to find the two closest clusters
+     */
+    public RootedTree(Species[] speciesArr, ClusteringEngine clusteringEngine) {
+        this(speciesArr, clusteringEngine, Linkage.WPGMA);
+    }
+
+    /**
+     * Constructor that creates the binary tree through a UPGMA-Type algorithm, using the specified
+     * engine to find the two closest clusters and the specified linkage to calculate the distances
+     * of each merged cluster.
+     * @param speciesArr The species to be used as descendants in the phylogenetic tree
+     * @param clusteringEngine The engine used to find the two closest clusters
+     * @param linkage How the distance from a merged cluster to the other clusters is calculated
+     */
+    public RootedTree(Species[] speciesArr, ClusteringEngine clusteringEngine, Linkage linkage) {
+        this(speciesArr, clusteringEngine, linkage, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor that creates the binary tree through a UPGMA-Type algorithm, using the specified
+     * engine to find the two closest clusters and the specified linkage to calculate the distances
+     * of each merged cluster.
+     * @param speciesArr The species to be used as descendants in the phylogenetic tree
+     * @param clusteringEngine The engine used to find the two closest clusters
+     * @param linkage How the distance from a merged cluster to the other clusters is calculated
+     * @param parallelism The number of threads used to build the initial distance matrix
+     */
+    public RootedTree(Species[] speciesArr, ClusteringEngine clusteringEngine, Linkage linkage,
+        int parallelism) {
         this.initialSpeciesNodeList = new ArrayList<Species>();
         this.speciesNodeList = new ArrayList<Species>();
+        this.clusters = new Species[speciesArr.length];
 
         // This loop adds initialspecies
         for (int i = 0; i < speciesArr.length; i++) {
             speciesArr[i].setDescendantSpeciesStatus();
-            this.speciesNodeList.add(speciesArr[i]);
+            this.clusters[i] = speciesArr[i];
             this.initialSpeciesNodeList.add(speciesArr[i]);
             this.size++;
         }
 
         // The following code creates ancestor nodes that correlate to the binary tree
-        ArrayList<ArrayList<Double>> distanceArr = this.setDistanceArray();
-        while (this.speciesNodeList.size() > 1) {
-            int[] twoClosestClusters = findSmallestDistance(distanceArr);
-            createAncestorNode(this.speciesNodeList.get(twoClosestClusters[0]),
-                this.speciesNodeList.get(twoClosestClusters[1]), distanceArr);
+        DistanceMatrix distanceArr = this.setDistanceArray(parallelism);
+        NearestNeighborCache nearestNeighbors = null;
+        if (clusteringEngine == ClusteringEngine.NEAREST_NEIGHBOR_CACHE) {
+            nearestNeighbors = new NearestNeighborCache(distanceArr);
+        }
+        DistanceHeaps distanceHeaps = null;
+        if (clusteringEngine == ClusteringEngine.DISTANCE_HEAPS) {
+            distanceHeaps = new DistanceHeaps(distanceArr);
+        }
+        while (distanceArr.getNumberOfActiveRows() > 1) {
+            int[] twoClosestClusters;
+            if (nearestNeighbors != null) {
+                twoClosestClusters = nearestNeighbors.findSmallestDistance();
+            } else if (distanceHeaps != null) {
+                twoClosestClusters = distanceHeaps.findSmallestDistance();
+            } else {
+                twoClosestClusters = findSmallestDistance(distanceArr);
+            }
+            createAncestorNode(twoClosestClusters[0], twoClosestClusters[1], distanceArr, linkage);
+            if (nearestNeighbors != null) {
+                nearestNeighbors.merged(twoClosestClusters[0], twoClosestClusters[1]);
+            } else if (distanceHeaps != null) {
+                distanceHeaps.merged(twoClosestClusters[0], twoClosestClusters[1]);
+            }
             this.size++;
         }
+        this.speciesNodeList.add(this.clusters[distanceArr.getActiveRow(0)]);
+        this.clusters = null;
+        this.showParsimony = false;
+        this.width = 0;
+        this.branchLength = 3;
+    }
+
+    /**
+     * Constructor that restores a tree whose nodes are already linked, for example a tree loaded
+     * from a binary tree file. No distances are calculated and no clustering is done.
+     * @see BinaryTreeFile.load for how a saved tree is linked back together
+     * @param initialSpecies The species used as descendants in the phylogenetic tree, in the order
+     *      they were given when the tree was first built.
+     * @param root The common ancestor of every initial species.
+     */
+    public RootedTree(Species[] initialSpecies, Species root) {
+        this.initialSpeciesNodeList = new ArrayList<Species>(Arrays.asList(initialSpecies));
+        this.speciesNodeList = new ArrayList<Species>();
+        this.speciesNodeList.add(root);
+        // A binary tree with n initial species has n - 1 ancestor nodes
+        this.size = 2 * initialSpecies.length - 1;
         this.showParsimony = false;
         this.width = 0;
         this.branchLength = 3;
     }
 
     /**
-     * This method takes two species and creates an ancestor node that contains the
-     * two specified parameter species as descendants. The distance array takes the
-     * average of the two species distances to the other species on the tree and the ancestor then
-     * uses this average as its distance to other species on the tree. The distance array then
-     * removes both descendant species from the distance array and adds in the new ancestor node.
-     * @param species1 The first descendant (Left descendant in string format)
-     * @param species2 The second descendant (Right descendant in string format)
+     * This method takes the rows of two clusters and creates an ancestor node that contains the
+     * two clusters as descendants. The distance array combines the two clusters distances to the
+     * other clusters on the tree (the average for UPGMA and WPGMA) and the ancestor then uses this
+     * value as its distance to other clusters on the tree. The ancestor node replaces the second
+     * cluster in its row of the distance array, and the row of the first cluster is removed.
+     * @param firstRow The row of the first descendant (Left descendant in string format)
+     * @param secondRow The row of the second descendant (Right descendant in string format)
+     * @param distanceArr The distance matrix of the clusters.
+     * @param linkage How the distances of the ancestor node are calculated.
      */
-    private void createAncestorNode(Species species1, Species species2,
-        ArrayList<ArrayList<Double>> distanceArr) {
-        final int INDEX_OF_FIRST_SPECIES = this.speciesNodeList.indexOf(species1);
-        final int INITIAL_INDEX_OF_SECOND_SPECIES = this.speciesNodeList.indexOf(species2);
-        final int NUMBER_OF_SPECIES = distanceArr.size();
+    private void createAncestorNode(int firstRow, int secondRow, DistanceMatrix distanceArr,
+        Linkage linkage) {
+        Species species1 = this.clusters[firstRow];
+        Species species2 = this.clusters[secondRow];
         final String ANCESTOR_NAME = species1.getName() + " " + species2.getName();
 
         Species ancestorOfSpecies = new Species();
         ancestorOfSpecies.setName(ANCESTOR_NAME);
         ancestorOfSpecies.setAncestorStatus();
         ancestorOfSpecies.setDescendantSpecies(species1, species2);
-        this.speciesNodeList.remove(species1);
-        this.speciesNodeList.set(speciesNodeList.indexOf(species2), ancestorOfSpecies);
-
-        ArrayList<Double> distanceForAncestor = new ArrayList<Double>();
-        // Average of distances of A and B to other nodes and updates distanceArr
-        for (int i = 0; i < NUMBER_OF_SPECIES; i++) {
-            double avgOfDistances;
-            if (i == INITIAL_INDEX_OF_SECOND_SPECIES) {
-                avgOfDistances = 0;
-            } else {
-                avgOfDistances = (((distanceArr.get(INDEX_OF_FIRST_SPECIES).get(i))
-                    + distanceArr.get(INITIAL_INDEX_OF_SECOND_SPECIES).get(i))) / 2;
-            }
-            distanceForAncestor.add(avgOfDistances);
-        }
-        distanceArr.set(INITIAL_INDEX_OF_SECOND_SPECIES, distanceForAncestor);
-        // Removes the first species distance row
-        distanceArr.remove(INDEX_OF_FIRST_SPECIES);
+        this.clusters[firstRow] = null;
+        this.clusters[secondRow] = ancestorOfSpecies;
 
-        // Updates values for new cluster in distanceArray
-        for (int i = 0; i < NUMBER_OF_SPECIES - 1; i++) {
-            distanceArr.get(i).set(INITIAL_INDEX_OF_SECOND_SPECIES, distanceForAncestor.get(i));
-        }
-        // Removes the comparisons to the first species
-        for (int i = 0; i < NUMBER_OF_SPECIES - 1; i++) {
-            distanceArr.get(i).remove(INDEX_OF_FIRST_SPECIES);
-        }
+        // Distances of A and B to other nodes are combined and stored in place in the row of B
+        distanceArr.merge(firstRow, secondRow, linkage);
     }
 
     /**
-     * This method finds the smallest distance on the distance array and returns the indices of
-     * the two species that correspond with the smallest distance.
-     * @param distanceArr An array of evolutionary distances between species.
-     * @return An array containing the indices of the two closest species based on traits commonality.
+     * This method finds the smallest distance on the distance array and returns the rows of
+     * the two clusters that correspond with the smallest distance. If several pairs share the
+     * smallest distance, the first pair found scanning the upper triangle row by row is returned.
+     * @param distanceArr An array of evolutionary distances between clusters.
+     * @return An array containing the rows of the two closest clusters based on traits commonality.
+     *      The first row is always smaller than the second.
      */
-    private int[] findSmallestDistance(ArrayList<ArrayList<Double>> distanceArr) {
-        final int NUMBER_OF_SPECIES = distanceArr.size();
-        final int NUMBER_OF_TRAITS = this.initialSpeciesNodeList.get(0).getTraits().length;
+    private int[] findSmallestDistance(DistanceMatrix distanceArr) {
+        final int NUMBER_OF_CLUSTERS = distanceArr.getNumberOfActiveRows();
         int[] twoClosestSpecies = new int[2];
-        double minimumDistance = NUMBER_OF_TRAITS;
-
-        for (int i = 0; i < NUMBER_OF_SPECIES - 1; i++) {
-            for (int j = i + 1; j < NUMBER_OF_SPECIES; j++) {
-                if (minimumDistance > distanceArr.get(i).get(j)) {
-                    minimumDistance = distanceArr.get(i).get(j);
-                    twoClosestSpecies[0] = i;
-                    twoClosestSpecies[1] = j;
+        double minimumDistance = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < NUMBER_OF_CLUSTERS - 1; i++) {
+            int row = distanceArr.getActiveRow(i);
+            for (int j = i + 1; j < NUMBER_OF_CLUSTERS; j++) {
+                int column = distanceArr.getActiveRow(j);
+                double distance = distanceArr.get(row, column);
+                if (minimumDistance > distance) {
+                    minimumDistance = distance;
+                    twoClosestSpecies[0] = row;
+                    twoClosestSpecies[1] = column;
                 }
             }
         }
@@ -159,27 +230,15 @@ public class RootedTree {
     }
 
     /**
-     * This method initializes the distance array based off of the species node list
-     * provided at object instantiation. 
-     * @see Species.getDistanceValue for more information for how distance is calculated.
-     * @return An array list of array lists of doubles that contains distance values.
-     *      The distance matrix runs parallel to the species node list.
+     * This method initializes the distance array based off of the species provided at object
+     * instantiation. Only the upper triangle is calculated as the matrix is symmetric.
+     * @see DistanceMatrix.fromSpecies for more information for how the matrix is built.
+     * @param parallelism The number of threads used to calculate distances.
+     * @return A distance matrix whose rows run parallel to the initial species list.
      */
-    private ArrayList<ArrayList<Double>> setDistanceArray() {
-        final int NUMBER_OF_SPECIES = this.speciesNodeList.size();
-
-        ArrayList<ArrayList<Double>> distanceMatrix = new ArrayList<ArrayList<Double>>();
-        for (int i = 0; i < NUMBER_OF_SPECIES; i++) {
-            distanceMatrix.add(new ArrayList<Double>());
-
-            // This loop j = i for effeciency but we are just worrying about getting code to work
-            // right now
-            for (int j = 0; j < NUMBER_OF_SPECIES; j++) {
-                distanceMatrix.get(i).add(
-                    (double) this.speciesNodeList.get(i).getDistanceValue(speciesNodeList.get(j)));
-            }
-        }
-        this.initialDistanceMatrix = distanceMatrix;
+    private DistanceMatrix setDistanceArray(int parallelism) {
+        DistanceMatrix distanceMatrix = DistanceMatrix.fromSpecies(this.clusters, parallelism);
+        this.distanceMatrix = distanceMatrix;
         return distanceMatrix;
     }
 
@@ -211,6 +270,30 @@ public class RootedTree {
         return this.initialSpeciesNodeList;
     }
 
+    /**
+     * This method names every ancestor node after its descendants again, joined by a space, after
+     * the names of the initial species have been changed. Nodes are visited without recursion, so
+     * deep trees do not overflow the stack.
+     */
+    public void updateAncestorNames() {
+        ArrayList<Species> preorder = new ArrayList<Species>();
+        ArrayDeque<Species> stack = new ArrayDeque<Species>();
+        stack.push(this.getRoot());
+        while (!stack.isEmpty()) {
+            Species current = stack.pop();
+            if (current.getHeight() != 1) {
+                preorder.add(current);
+                stack.push(current.getDescendants()[1]);
+                stack.push(current.getDescendants()[0]);
+            }
+        }
+        // Every ancestor comes before its descendants, so they are named in reverse
+        for (int i = preorder.size() - 1; i >= 0; i--) {
+            Species[] descendants = preorder.get(i).getDescendants();
+            preorder.get(i).setName(descendants[0].getName() + " " + descendants[1].getName());
+        }
+    }
+
     /**
      * This is an accessor method that returns the size of the tree. The size of the tree
      * can be defined as the total number of species nodes (ancestors and descendants) present
@@ -222,23 +305,61 @@ public class RootedTree {
     }
 
     /**
-     * This is an accessor method that returns the initial distance matrix generated by the initial
-     * species provided at object instantiation.
+     * This is an accessor method that returns the distance matrix generated by the initial
+     * species provided at object instantiation. Once the tree has been built only the row of
+     * the root is still active.
      * This method is mainly used for testing purposes.
-     * @return The initial distance matrix.
+     * @return The distance matrix.
      */
+    public DistanceMatrix getDistanceMatrix() {
+        return this.distanceMatrix;
+    }
+
+    /**
+     * This is an accessor method that returns the active rows of the distance matrix as an array
+     * list of array lists, the type returned before the distance matrix was stored in a
+     * DistanceMatrix. Once the tree has been built only the row of the root is still active.
+     * @deprecated Use getDistanceMatrix, which does not copy the matrix.
+     * @return A copy of the active rows of the distance matrix, empty if no distances were
+     *      calculated.
+     */
+    @Deprecated
     public ArrayList<ArrayList<Double>> getInitialDistanceMatrix() {
-        return this.initialDistanceMatrix;
+        ArrayList<ArrayList<Double>> distanceMatrix = new ArrayList<ArrayList<Double>>();
+        if (this.distanceMatrix == null) {
+            return distanceMatrix;
+        }
+
+        final int NUMBER_OF_ROWS = this.distanceMatrix.getNumberOfActiveRows();
+        for (int i = 0; i < NUMBER_OF_ROWS; i++) {
+            final int ROW = this.distanceMatrix.getActiveRow(i);
+            ArrayList<Double> distances = new ArrayList<Double>(NUMBER_OF_ROWS);
+            for (int j = 0; j < NUMBER_OF_ROWS; j++) {
+                distances.add(this.distanceMatrix.get(ROW, this.distanceMatrix.getActiveRow(j)));
+            }
+            distanceMatrix.add(distances);
+        }
+        return distanceMatrix;
     }
 
     /**
      * This is a mutator method that is used if a user wishes to show parsimony on the tree.
-     * If called, sets showParsimony to true and then calculates the trait values of each ancestor node
-     * that would result in the most parsimonious(least number of evolutionary changes) tree.
-     * @see RootedTree.setPossibleAncestorTraits for how parsimony is determined
+     * If called, sets showParsimony to true so the traits of each ancestor node and the parsimony
+     * score are drawn. No trait states are calculated.
+     * @see RootedTree.generatePossibleAncestorTraits for what the backtracking engines need first
      */
     public void setShowParsimony() {
         this.showParsimony = true;
+    }
+
+    /**
+     * This method generates the possible trait states of every ancestor node. Only the
+     * backtracking parsimony engines need them, the other engines determine ancestor trait states
+     * on their own.
+     * @see ParsimonyEngine.requiresPossibleTraitStates
+     * @see RootedTree.setPossibleAncestorTraits for how parsimony is determined
+     */
+    public void generatePossibleAncestorTraits() {
         setPossibleAncestorTraits(this.getRoot());
     }
 
@@ -271,55 +392,49 @@ public class RootedTree {
     /**
      * This method overrides javas default object toString method to generate a string representation
      * of the phylogenetic tree.
-     *      
+     * @see RootedTree.writeTo for writing large trees without creating the string.
      */
     @Override
     public String toString() {
-        String outputTree = "";
-        boolean treeDone = false;
-        char[][] treeAsCharArr = null;
-        // branchIncreaser is used in case the width of our "String tree" char arr is not big enough
-        int branchIncreaser = 0;
+        StringWriter writer = new StringWriter();
+        try {
+            this.writeTo(writer);
+        } catch (IOException e) {
+            // A StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
 
+    /**
+     * This method writes the string representation of the phylogenetic tree to a writer. Each row
+     * of the tree is written as soon as the tree has been drawn, so the whole tree is never held
+     * in a single string and the time taken grows linearly with the size of the output.
+     * The size of the output itself is unchanged by this: the tree is (branchLength + 1) * height
+     * rows of at least branchLength * height * number of species chars, so it grows with the
+     * square of the height times the number of species.
+     * @see NewickWriter for output that stays proportional to the number of species
+     * @param writer The writer the tree is written to. Should be buffered, it is not flushed or
+     *      closed.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public void writeTo(Writer writer) throws IOException {
         int heightOfRoot = this.getRoot().getHeight();
-        int widthOfTree = heightOfRoot * ((this.branchLength) * this.initialSpeciesNodeList.size());
+        // The tree is measured first so it is only drawn once, onto a canvas that fits it
+        int widthOfTree = this.measureWidth();
         this.width = widthOfTree;
-        // catch java.lang.ArrayIndexOutOfBoundsException
-        do {
-            treeAsCharArr = new char[heightOfRoot * (this.branchLength + 1)][widthOfTree];
-            // Inserts the root onto the tree along with its branchs
-            String rootStr = "Root: " + this.getRoot().getName();
-            this.getRoot().setLocationOnTree(0, widthOfTree / 2);
-            this.insertStringIntoCharArr(rootStr, 0, widthOfTree / 2, treeAsCharArr);
-            this.insertHeight(this.getRoot().getHeight(), treeAsCharArr);
-            this.insertBranch(this.getRoot(), treeAsCharArr);
-            // Inserts all descendants of the root into the char array (AKA all species)
-            // Try block used to catch if we need to make width of tree (char array) bigger to fit
-            // tree
-            try {
-                this.insertDescendantsIntoCharArr(this.getRoot(), treeAsCharArr);
-            } catch (ArrayIndexOutOfBoundsException e) {
-                e.printStackTrace();
-                widthOfTree = heightOfRoot * ((this.branchLength + ++branchIncreaser)
-                    * this.initialSpeciesNodeList.size());
-                this.width = widthOfTree;
-                continue;
-            }
-            // Prints out the height, left aligned, on the line where species are shown
-            for (int i = this.getRoot().getHeight() - 2; i >= 0; i--) {
-                insertHeight((i + 1), treeAsCharArr);
-            }
-            treeDone = true;
-        } while (!treeDone);
-        //Converts null chars in char array into ' ' chars
-        replaceNullChar(treeAsCharArr);
-
-        // Converts the charArr(the tree) to a String
-        outputTree += Output.multipleCharsToString('-', widthOfTree) + "\n";
-        for (int i = 0; i < treeAsCharArr.length; i++) {
-            outputTree += new String(treeAsCharArr[i]) + "\n";
+        SparseCanvas treeCanvas = new SparseCanvas(this.getNumberOfRows(), widthOfTree);
+        this.drawTree(widthOfTree / 2, treeCanvas);
+
+        // Writes the canvas(the tree) one row at a time
+        Output.writeRepeatedChar(writer, '-', widthOfTree);
+        writer.write('\n');
+        for (int i = 0; i < treeCanvas.getNumberOfRows(); i++) {
+            treeCanvas.writeRow(writer, i);
+            writer.write('\n');
         }
-        outputTree += Output.multipleCharsToString('-', widthOfTree) + "\n";
+        Output.writeRepeatedChar(writer, '-', widthOfTree);
+        writer.write('\n');
 
         // If user specified to show parsimony, we do some additional method calls to show parsimony
         if (this.showParsimony) {
@@ -329,19 +444,93 @@ public class RootedTree {
             speciesByHeight = speciesByHeight(this.getRoot());
 
             // Prints out probable traitStates for ancestors
-            String parsimonyScore = "Parsimony Score Of Tree: " + Parsimony.getParsimonyScoreOfTree();
-            outputTree +=
-                Output.multipleCharsToString(' ', (widthOfTree - parsimonyScore.length()) / 2)
-                    + parsimonyScore + "\n\n";
+            String parsimonyScore = "Parsimony Score Of Tree: " + this.parsimonyScore;
+            Output.writeRepeatedChar(writer, ' ', (widthOfTree - parsimonyScore.length()) / 2);
+            writer.write(parsimonyScore);
+            writer.write("\n\n");
             String traitStateHeader = "Probable trait states of ancestor nodes:";
-            outputTree +=
-                Output.multipleCharsToString(' ', (widthOfTree - traitStateHeader.length()) / 2)
-                    + traitStateHeader + "\n";
+            Output.writeRepeatedChar(writer, ' ', (widthOfTree - traitStateHeader.length()) / 2);
+            writer.write(traitStateHeader);
+            writer.write('\n');
+
+            writeTraitStates(writer, speciesByHeight, heightOfRoot);
+        }
+    }
 
-            outputTree += traitStatesToString(speciesByHeight, heightOfRoot);
+    /**
+     * This method draws the tree onto a canvas, or measures it if no canvas is given.
+     * @param rootColumn The column the root is centered on.
+     * @param canvas The canvas the tree is drawn onto, null to only measure the tree.
+     */
+    private void drawTree(int rootColumn, SparseCanvas canvas) {
+        // Inserts the root onto the tree along with its branchs
+        String rootStr = "Root: " + this.getRoot().getName();
+        this.getRoot().setLocationOnTree(0, rootColumn);
+        this.insertStringIntoCanvas(rootStr, 0, rootColumn, canvas);
+        this.insertHeight(this.getRoot().getHeight(), canvas);
+        this.insertBranch(this.getRoot(), canvas);
+        // Inserts all descendants of the root onto the canvas (AKA all species)
+        this.insertDescendantsIntoCanvas(this.getRoot(), canvas);
+        // Prints out the height, left aligned, on the line where species are shown
+        for (int i = this.getRoot().getHeight() - 2; i >= 0; i--) {
+            insertHeight((i + 1), canvas);
+        }
+    }
+
+    /**
+     * This method determines the width of the string representation of the tree without drawing
+     * it. The tree is laid out once with the root at column 0, which records the leftmost and
+     * rightmost column written relative to the root. The width is the smallest multiple of
+     * (height of root * number of species) that is at least branchLength multiples wide and fits
+     * every column once the root is centered. This is the same width the tree has always been
+     * drawn with, so the width still grows with the height times the number of species.
+     * @return The width of the tree in chars.
+     */
+    private int measureWidth() {
+        ColumnExtents extents = new ColumnExtents();
+        this.layoutExtents = extents;
+        try {
+            this.drawTree(0, null);
+        } finally {
+            this.layoutExtents = null;
         }
 
-        return outputTree;
+        // The root is centered on column width / 2, so the columns left of it need
+        // width >= 2 * leftmost and the columns right of it need width >= 2 * rightmost + 1
+        int minimumWidth = Math.max(2 * -extents.minimumColumn, 2 * extents.maximumColumn + 1);
+        // Strings that would start left of column 0 are moved to column 0 and must still fit
+        minimumWidth = Math.max(minimumWidth, extents.maximumStringLength);
+        final int COLUMNS_PER_BRANCH_LENGTH =
+            this.getRoot().getHeight() * this.initialSpeciesNodeList.size();
+        int branchIncreaser = Math.max(0,
+            (minimumWidth + COLUMNS_PER_BRANCH_LENGTH - 1) / COLUMNS_PER_BRANCH_LENGTH
+                - this.branchLength);
+        return COLUMNS_PER_BRANCH_LENGTH * (this.branchLength + branchIncreaser);
+    }
+
+    /**
+     * This method returns the number of rows of the string representation of the tree. Species
+     * are present every branch length + 1 rows.
+     * @return The number of rows.
+     */
+    private int getNumberOfRows() {
+        return this.getRoot().getHeight() * (this.branchLength + 1);
+    }
+
+    /**
+     * This method draws a char onto a canvas, or records its column while the tree is being
+     * measured.
+     * @param canvas The canvas to draw onto, null while measuring.
+     * @param row The row of the char.
+     * @param column The column of the char.
+     * @param c The char to write.
+     */
+    private void put(SparseCanvas canvas, int row, int column, char c) {
+        if (canvas == null) {
+            this.layoutExtents.includeColumn(column);
+        } else {
+            canvas.put(row, column, c);
+        }
     }
 
     /**
@@ -400,16 +589,20 @@ public class RootedTree {
     }
 
     /**
-     * This method inserts a string into a char array and centers it in at a specified index in a charArr.
-     * @param stringToInsert A string to insert into the char array.
+     * This method inserts a string onto a canvas and centers it in at a specified column.
+     * @param stringToInsert A string to insert onto the canvas.
      * @param currentRow The row to insert the string.
      * @param centerOfWordLocation The column to center the string around.
-     * @param charArr The char array to be inserted into.
+     * @param canvas The canvas to be inserted onto.
      */
-    private void insertStringIntoCharArr(String stringToInsert, int currentRow,
-        int centerOfWordLocation, char[][] charArr) {
+    private void insertStringIntoCanvas(String stringToInsert, int currentRow,
+        int centerOfWordLocation, SparseCanvas canvas) {
         int lengthOfString = stringToInsert.length();
         int actualLocationOfStrInsert = centerOfWordLocation - (lengthOfString / 2);
+        if (canvas == null) {
+            this.layoutExtents.includeString(actualLocationOfStrInsert, lengthOfString);
+            return;
+        }
 
         if (actualLocationOfStrInsert < 0) {
             actualLocationOfStrInsert = 0;
@@ -418,42 +611,42 @@ public class RootedTree {
         for (int i = 0; i < lengthOfString; i++) {
             // This is where we would detect and throw an overlap exception
             int locationForCharInsert = actualLocationOfStrInsert + i;
-            charArr[currentRow][locationForCharInsert] = stringToInsert.charAt(i);
+            canvas.put(currentRow, locationForCharInsert, stringToInsert.charAt(i));
         }
 
         return;
     }
 
     /**
-     * This method inserts a species object into a char array.
-     * The location of the species on the char array will have already been determined
+     * This method inserts a species object onto a canvas.
+     * The location of the species on the canvas will have already been determined
      * and stored as a field in the species object.
      * @param speciesToInsert The species to insert.
-     * @param charArr The char array to insert into.
+     * @param canvas The canvas to insert onto.
      */
-    private void insertSpeciesIntoCharArr(Species species, char[][] charArr) {
+    private void insertSpeciesIntoCanvas(Species species, SparseCanvas canvas) {
         int rowLocation = species.getLocationOnTree()[0];
         int columnLocation = species.getLocationOnTree()[1];
 
-        insertStringIntoCharArr(species.getName(), rowLocation, columnLocation, charArr);
+        insertStringIntoCanvas(species.getName(), rowLocation, columnLocation, canvas);
         return;
     }
 
     /**
-     * This is a recursive method that inserts all descendants of a species into a specified char array.
+     * This is a recursive method that inserts all descendants of a species onto a specified canvas.
      * Algorithm:
      *      First, we get the references to each descendant, as well as their height.
      *      Second, the location of each descendant is determined by a series of mathematical formulas and
      *      stored as an instance member variable in each species object.
-     *      Third, the species are inserted into the character array.
+     *      Third, the species are inserted onto the canvas.
      *      Fourth, branches are created that link the ancestor to the descendant
      *      Fifth, if the descendants have a height value not equal to 1 (height valuesare always 1 or higher)
      *      then the method calls upon itself.
      *      
      * @param ancestor The ancestor whose descendants should be placed onto the tree
-     * @param charArr The char array that descendants are inserted into
+     * @param canvas The canvas that descendants are inserted onto
      */
-    private void insertDescendantsIntoCharArr(Species ancestor, char[][] charArr) {
+    private void insertDescendantsIntoCanvas(Species ancestor, SparseCanvas canvas) {
         Species leftDescendant = ancestor.getDescendants()[0];
         Species rightDescendant = ancestor.getDescendants()[1];
 
@@ -470,7 +663,7 @@ public class RootedTree {
             (heightDifferenceOfR) * (int) (.5 * ancestor.getName().length());
 
         // Branch length + 1 is used as species are present every branch length +1 rows
-        int rowLocationOfLeft = charArr.length - ((this.branchLength + 1) * heightOfLeft);
+        int rowLocationOfLeft = this.getNumberOfRows() - ((this.branchLength + 1) * heightOfLeft);
         // Subtract the column displacement caused by branch insertion from the ancestor column
         // location to get descendant location
         int columnLocationOfLeft = ancestor.getLocationOnTree()[1]
@@ -480,7 +673,8 @@ public class RootedTree {
             columnLocationOfLeft--;
         }
         // Branch length + 1 is used as species are present every branch length +1 rows
-        int rowLocationOfRight = charArr.length - ((this.branchLength + 1) * heightOfRight);
+        int rowLocationOfRight =
+            this.getNumberOfRows() - ((this.branchLength + 1) * heightOfRight);
         // Add the column displacement caused by branch insertion from the ancestor column location
         // to get descendant location
         int columnLocationOfRight = ancestor.getLocationOnTree()[1]
@@ -494,37 +688,37 @@ public class RootedTree {
         rightDescendant.setLocationOnTree(rowLocationOfRight, columnLocationOfRight);
 
 
-        insertSpeciesIntoCharArr(leftDescendant, charArr);
-        insertSpeciesIntoCharArr(rightDescendant, charArr);
+        insertSpeciesIntoCanvas(leftDescendant, canvas);
+        insertSpeciesIntoCanvas(rightDescendant, canvas);
 
         if (this.showParsimony) {
-            this.insertParsimonyBranch(ancestor, leftDescendant, charArr);
-            this.insertParsimonyBranch(ancestor, rightDescendant, charArr);
+            this.insertParsimonyBranch(ancestor, leftDescendant, canvas);
+            this.insertParsimonyBranch(ancestor, rightDescendant, canvas);
         } else {
-            this.insertBranch(ancestor, leftDescendant, charArr);
-            this.insertBranch(ancestor, rightDescendant, charArr);
+            this.insertBranch(ancestor, leftDescendant, canvas);
+            this.insertBranch(ancestor, rightDescendant, canvas);
         }
         if (leftDescendant.getHeight() != 1) {
-            this.insertDescendantsIntoCharArr(leftDescendant, charArr);
+            this.insertDescendantsIntoCanvas(leftDescendant, canvas);
         }
 
         if (rightDescendant.getHeight() != 1) {
-            this.insertDescendantsIntoCharArr(rightDescendant, charArr);
+            this.insertDescendantsIntoCanvas(rightDescendant, canvas);
         }
     }
 
     /**TODO Update this method header
      * This method inserts a branch between an ancestor species and a descendant species.
      * It does so in a top down perspective. If the difference in heights of the ancestor and
-     * descendant is greater than 1 then a series of '_' characters are added to the char array
+     * descendant is greater than 1 then a series of '_' characters are added to the canvas
      * at heights where an ancestor node could have been. The reasoning for this is to prevent
      * overlap of the various tree characters (such as overlapping ancestor species names).
      * @param ancestor The ancestor species where the branch will start.
      * @param descendant The descendant species where the branch will end.
-     * @param charArr The char array that the branch is inserted into.
+     * @param canvas The canvas that the branch is inserted onto.
      */
 
-    private void insertParsimonyBranch(Species ancestor, Species descendant, char[][] charArr) {
+    private void insertParsimonyBranch(Species ancestor, Species descendant, SparseCanvas canvas) {
         int rowLocationOfAncestor = ancestor.getLocationOnTree()[0];
         int columnLocationOfAncestor = ancestor.getLocationOnTree()[1];
         int rowLocationOfDescendant = descendant.getLocationOnTree()[0];
@@ -538,7 +732,7 @@ public class RootedTree {
         if (differenceOfColumns < 0) {
             int j = columnLocationOfAncestor;
             for (int i = rowLocationOfAncestor + 1; i < rowLocationOfDescendant; i++) {
-                charArr[i][j + 1] = '\\';
+                this.put(canvas, i, j + 1, '\\');
                 j++;
                 // Inserts parsimony score
                 if (i - rowLocationOfAncestor == midPointOfRow
@@ -546,28 +740,29 @@ public class RootedTree {
                     // Need to do something different if midPoint falls upon a series of '_'
 
                     if ((counter + 1) % (this.branchLength + 1) == 0) {
-                        charArr[i][j + 1 + (ancestor.getName().length() / 2)] = ' ';
-                        charArr[i][j + 2 + (ancestor.getName().length() / 2)] = 'P';
-                        charArr[i][j + 3 + (ancestor.getName().length() / 2)] = '+';
-                        charArr[i][j + 4 + (ancestor.getName().length() / 2)] = '=';
-                        charArr[i][j + 5 + (ancestor.getName().length() / 2)] = Character.forDigit(
-                            ancestor.getParsimonyScore(descendant), ancestor.getTraits().length);
+                        this.put(canvas, i, j + 1 + (ancestor.getName().length() / 2), ' ');
+                        this.put(canvas, i, j + 2 + (ancestor.getName().length() / 2), 'P');
+                        this.put(canvas, i, j + 3 + (ancestor.getName().length() / 2), '+');
+                        this.put(canvas, i, j + 4 + (ancestor.getName().length() / 2), '=');
+                        this.put(canvas, i, j + 5 + (ancestor.getName().length() / 2),
+                            Character.forDigit(ancestor.getParsimonyScore(descendant),
+                                ancestor.getNumberOfTraits()));
                     } else {
-                        charArr[i][j + 1] = ' ';
-                        charArr[i][j + 2] = 'P';
-                        charArr[i][j + 3] = '+';
-                        charArr[i][j + 4] = '=';
-                        charArr[i][j + 5] = Character.forDigit(
-                            ancestor.getParsimonyScore(descendant), ancestor.getTraits().length);
+                        this.put(canvas, i, j + 1, ' ');
+                        this.put(canvas, i, j + 2, 'P');
+                        this.put(canvas, i, j + 3, '+');
+                        this.put(canvas, i, j + 4, '=');
+                        this.put(canvas, i, j + 5, Character.forDigit(
+                            ancestor.getParsimonyScore(descendant), ancestor.getNumberOfTraits()));
                     }
                 }
                 counter++;
                 if (counter % (this.branchLength + 1) == 0) {
                     for (int k = 0; k < (ancestor.getName().length() / 2); k++) {
-                        charArr[i][j + 1] = '_';
+                        this.put(canvas, i, j + 1, '_');
                         j++;
                     }
-                    charArr[i][j + 1] = '_';
+                    this.put(canvas, i, j + 1, '_');
                     j++;
                 }
             }
@@ -575,7 +770,7 @@ public class RootedTree {
         } else if (differenceOfColumns > 0) {
             int j = columnLocationOfAncestor;
             for (int i = rowLocationOfAncestor + 1; i < rowLocationOfDescendant; i++) {
-                charArr[i][j - 1] = '/';
+                this.put(canvas, i, j - 1, '/');
                 j--;
                 // Inserts parsimony score changes on branches
                 if (i - rowLocationOfAncestor == midPointOfRow
@@ -583,28 +778,29 @@ public class RootedTree {
                     // Need to do something different if midPoint falls upon a series of '_'
 
                     if ((counter + 1) % (this.branchLength + 1) == 0) {
-                        charArr[i][j - 1 - (ancestor.getName().length() / 2)] = ' ';
-                        charArr[i][j - 2 - (ancestor.getName().length() / 2)] = Character.forDigit(
-                            ancestor.getParsimonyScore(descendant), ancestor.getTraits().length);
-                        charArr[i][j - 3 - (ancestor.getName().length() / 2)] = '=';
-                        charArr[i][j - 4 - (ancestor.getName().length() / 2)] = '+';
-                        charArr[i][j - 5 - (ancestor.getName().length() / 2)] = 'P';
+                        this.put(canvas, i, j - 1 - (ancestor.getName().length() / 2), ' ');
+                        this.put(canvas, i, j - 2 - (ancestor.getName().length() / 2),
+                            Character.forDigit(ancestor.getParsimonyScore(descendant),
+                                ancestor.getNumberOfTraits()));
+                        this.put(canvas, i, j - 3 - (ancestor.getName().length() / 2), '=');
+                        this.put(canvas, i, j - 4 - (ancestor.getName().length() / 2), '+');
+                        this.put(canvas, i, j - 5 - (ancestor.getName().length() / 2), 'P');
                     } else {
-                        charArr[i][j - 1] = ' ';
-                        charArr[i][j - 2] = Character.forDigit(
-                            ancestor.getParsimonyScore(descendant), ancestor.getTraits().length);
-                        charArr[i][j - 3] = '=';
-                        charArr[i][j - 4] = '+';
-                        charArr[i][j - 5] = 'P';
+                        this.put(canvas, i, j - 1, ' ');
+                        this.put(canvas, i, j - 2, Character.forDigit(
+                            ancestor.getParsimonyScore(descendant), ancestor.getNumberOfTraits()));
+                        this.put(canvas, i, j - 3, '=');
+                        this.put(canvas, i, j - 4, '+');
+                        this.put(canvas, i, j - 5, 'P');
                     }
                 }
                 counter++;
                 if (counter % (this.branchLength + 1) == 0) {
                     for (int k = 0; k < (ancestor.getName().length() / 2); k++) {
-                        charArr[i][j - 1] = '_';
+                        this.put(canvas, i, j - 1, '_');
                         j--;
                     }
-                    charArr[i][j - 1] = '_';
+                    this.put(canvas, i, j - 1, '_');
                     j--;
                 }
             }
@@ -614,15 +810,15 @@ public class RootedTree {
     /**
      * This method inserts a branch between an ancestor species and a descendant species.
      * It does so in a top down perspective. If the difference in heights of the ancestor and
-     * descendant is greater than 1 then a series of '_' characters are added to the char array
+     * descendant is greater than 1 then a series of '_' characters are added to the canvas
      * at heights where an ancestor node could have been. The reasoning for this is to prevent
      * overlap of the various tree characters (such as overlapping ancestor species names).
      * @param ancestor The ancestor species where the branch will start.
      * @param descendant The descendant species where the branch will end.
-     * @param charArr The char array that the branch is inserted into.
+     * @param canvas The canvas that the branch is inserted onto.
      */
 
-    private void insertBranch(Species ancestor, Species descendant, char[][] charArr) {
+    private void insertBranch(Species ancestor, Species descendant, SparseCanvas canvas) {
         int rowLocationOfAncestor = ancestor.getLocationOnTree()[0];
         int columnLocationOfAncestor = ancestor.getLocationOnTree()[1];
         int rowLocationOfDescendant = descendant.getLocationOnTree()[0];
@@ -634,30 +830,30 @@ public class RootedTree {
         if (differenceOfColumns < 0) {
             int j = columnLocationOfAncestor;
             for (int i = rowLocationOfAncestor + 1; i < rowLocationOfDescendant; i++) {
-                charArr[i][j + 1] = '\\';
+                this.put(canvas, i, j + 1, '\\');
                 j++;
                 counter++;
                 if (counter % (this.branchLength + 1) == 0) {
                     for (int k = 0; k < (ancestor.getName().length() / 2); k++) {
-                        charArr[i][j + 1] = '_';
+                        this.put(canvas, i, j + 1, '_');
                         j++;
                     }
-                    charArr[i][j + 1] = '_';
+                    this.put(canvas, i, j + 1, '_');
                     j++;
                 }
             }
         } else if (differenceOfColumns > 0) {
             int j = columnLocationOfAncestor;
             for (int i = rowLocationOfAncestor + 1; i < rowLocationOfDescendant; i++) {
-                charArr[i][j - 1] = '/';
+                this.put(canvas, i, j - 1, '/');
                 j--;
                 counter++;
                 if (counter % (this.branchLength + 1) == 0) {
                     for (int k = 0; k < (ancestor.getName().length() / 2); k++) {
-                        charArr[i][j - 1] = '_';
+                        this.put(canvas, i, j - 1, '_');
                         j--;
                     }
-                    charArr[i][j - 1] = '_';
+                    this.put(canvas, i, j - 1, '_');
                     j--;
                 }
             }
@@ -667,33 +863,39 @@ public class RootedTree {
     /**
      * This method inserts the branches pertaining to the root species
      * @param root The root species of the tree
-     * @param charArr The char array that the root species is inserted into
+     * @param canvas The canvas that the root species is inserted onto
      */
-    private void insertBranch(Species root, char[][] charArr) {
+    private void insertBranch(Species root, SparseCanvas canvas) {
         int rowLocation = root.getLocationOnTree()[0];
         int columnLocation = root.getLocationOnTree()[1];
 
         for (int i = 1; i < 4; i++) {
-            charArr[rowLocation + i][columnLocation + i] = '\\';
-            charArr[rowLocation + i][columnLocation - i] = '/';
+            this.put(canvas, rowLocation + i, columnLocation + i, '\\');
+            this.put(canvas, rowLocation + i, columnLocation - i, '/');
         }
     }
 
     /**
      * This method inserts the height parameter, left aligned, on the string representation of the tree
      * @param height The height of species at this line
-     * @param charArr The char array that the height is being inserted into
+     * @param canvas The canvas that the height is being inserted onto
      */
-    private void insertHeight(int height, char[][] charArr) {
-        int insertRow = charArr.length - (height * 4);
+    private void insertHeight(int height, SparseCanvas canvas) {
+        int insertRow = this.getNumberOfRows() - (height * 4);
         String heightAsStr = "Height: " + height;
-        insertStringIntoCharArr(heightAsStr, insertRow, 0, charArr);
+        // Heights are left aligned instead of placed relative to the root, so only their length
+        // matters for the width of the tree
+        if (canvas == null) {
+            this.layoutExtents.includeLeftAlignedString(heightAsStr.length());
+            return;
+        }
+        insertStringIntoCanvas(heightAsStr, insertRow, 0, canvas);
 
     }
 
     /**
-     * This method converts an array list of array lists of species to a formatted string.
-     * The format for the string is:
+     * This method writes an array list of array lists of species as formatted text.
+     * The format for the text is:
      *      Height n:
      *          speciesName: {traits}
      *          speciesName: {traits}
@@ -704,50 +906,52 @@ public class RootedTree {
      *          speciesName: {traits}
      *          speciesName: {traits}
      * Traits are the trait states present in the most parsimonious phylogenetic tree.
+     * @param writer The writer the trait states are written to.
      * @param speciesByHeight
      * @param heightOfRoot
-     * @return
+     * @throws IOException If the writer cannot be written to.
      */
-    private String traitStatesToString(ArrayList<ArrayList<Species>> speciesByHeight,
-        int heightOfRoot) {
-        String outputStr = "";
-
+    private static void writeTraitStates(Writer writer,
+        ArrayList<ArrayList<Species>> speciesByHeight, int heightOfRoot) throws IOException {
         for (int i = heightOfRoot - 1; i >= 0; i--) {
-            outputStr += "Height " + (i + 1) + ":\n";
-            outputStr += traitStatesAtHeightToStr(speciesByHeight.get(i));
+            writer.write("Height " + (i + 1) + ":\n");
+            writeTraitStatesAtHeight(writer, speciesByHeight.get(i));
         }
-
-        return outputStr;
     }
 
     /**
-     * Takes an array list correlating to the species at a height on the tree and converts them to a string.
-     *      Could have used string writer for this but decided that would complicate things too much.
+     * Takes an array list correlating to the species at a height on the tree and writes them to a
+     * writer.
+     * @param writer The writer the trait states are written to.
      * @param speciesAtHeight An array list containing the number of species at a certain height in the tree
-     * @return String containing the species and their optimized(for parsimony) trait states
+     * @throws IOException If the writer cannot be written to.
      */
-    private String traitStatesAtHeightToStr(ArrayList<Species> speciesAtHeight) {
-        String outputStr = "";
+    private static void writeTraitStatesAtHeight(Writer writer,
+        ArrayList<Species> speciesAtHeight) throws IOException {
         for (Species species : speciesAtHeight) {
-            outputStr += "\t" + species.getName() + ": " + intArrToStr(species.getTraits()) + "\n";
+            writer.write('\t');
+            writer.write(String.valueOf(species.getName()));
+            writer.write(": ");
+            writeIntArr(writer, species.getTraits());
+            writer.write('\n');
         }
-
-        return outputStr;
     }
 
     /**
-     * Prints out a string representation of an array of ints
+     * Writes out a string representation of an array of ints, for example {0,1,1}.
+     * @param writer The writer the array is written to.
      * @param intArr An integer array
-     * @return String representation of an int array
+     * @throws IOException If the writer cannot be written to.
      */
-    private static String intArrToStr(int[] intArr) {
-        String intArrAsStr = "{";
-        for (int i = 0; i < intArr.length - 1; i++) {
-            intArrAsStr += intArr[i] + ",";
+    private static void writeIntArr(Writer writer, int[] intArr) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < intArr.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(Integer.toString(intArr[i]));
         }
-        intArrAsStr += intArr[intArr.length - 1] + "}";
-
-        return intArrAsStr;
+        writer.write('}');
     }
 
     /**
@@ -758,6 +962,24 @@ public class RootedTree {
         return this.width;
     }
 
+    /**
+     * This is an accessor method that returns the parsimony score of the tree.
+     * @return The parsimony score set by the most recent Parsimony.solve of this tree, 0 if the
+     *      tree has not been solved.
+     */
+    public int getParsimonyScore() {
+        return this.parsimonyScore;
+    }
+
+    /**
+     * This is a mutator method that stores the parsimony score of the tree, so it is shown when
+     * the tree is converted to a string.
+     * @param parsimonyScore The parsimony score of the tree.
+     */
+    public void setParsimonyScore(int parsimonyScore) {
+        this.parsimonyScore = parsimonyScore;
+    }
+
     /**
      * This accessor method returns if we have decided to show parsimony.
      * @return boolean true if parsimony is shown, false if parsiomony is not shown.
@@ -767,18 +989,40 @@ public class RootedTree {
     }
     
     /**
-     * This method converts all null characters into ' ' characters so that text editors properly
-     * display the charArr when converted to a string.
-     * @param charArr An array of an array of chars
+     * This class records the columns written while measuring the string representation of the
+     * tree, relative to the column of the root.
      */
-    private static void replaceNullChar(char[][] charArr) {
-        for(int i = 0; i < charArr.length; i++) {
-            for(int j = 0; j < charArr[i].length; j++) {
-                if(charArr[i][j] == 0) {
-                    charArr[i][j] = ' ';
-                }
-            }
+    private static class ColumnExtents {
+        private int minimumColumn = 0;
+        private int maximumColumn = 0;
+        private int maximumStringLength = 0;
+
+        /**
+         * This method records a single char written at a column.
+         * @param column The column of the char.
+         */
+        private void includeColumn(int column) {
+            this.minimumColumn = Math.min(this.minimumColumn, column);
+            this.maximumColumn = Math.max(this.maximumColumn, column);
         }
-    }
 
+        /**
+         * This method records a string written from a column. A string that would start left of
+         * column 0 is moved to column 0, so only its length and its last column are recorded.
+         * @param firstColumn The column of the first char of the string.
+         * @param length The length of the string.
+         */
+        private void includeString(int firstColumn, int length) {
+            this.maximumColumn = Math.max(this.maximumColumn, firstColumn + length - 1);
+            this.maximumStringLength = Math.max(this.maximumStringLength, length);
+        }
+
+        /**
+         * This method records a string written from column 0 of the canvas.
+         * @param length The length of the string.
+         */
+        private void includeLeftAlignedString(int length) {
+            this.maximumStringLength = Math.max(this.maximumStringLength, length);
+        }
+    }
 }
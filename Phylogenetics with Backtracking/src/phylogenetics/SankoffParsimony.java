@@ -0,0 +1,157 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+// Sankoff, D. (1975). Minimal mutation trees of sequences. SIAM Journal on Applied Mathematics
+// 28(1): 35-42.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class determines the trait states of the ancestor nodes of a rooted tree with Sankoff's
+ * weighted parsimony algorithm. Unlike Fitch's algorithm, gaining and losing a trait may have
+ * different costs, and every trait may have its own costs.
+ *
+ * For every trait, the bottom-up pass finds the smallest cost of the subtree of each node for both
+ * states of the node. The top-down pass then picks the cheapest state of the root and, for every
+ * other ancestor node, the cheapest state given the state picked for its ancestor. Both passes
+ * visit each node once per trait and state pair, so the algorithm runs in
+ * O(nodes * traits * states^2). The subtree costs are kept in two arrays that are reused for every
+ * trait, nothing is allocated per node.
+ *
+ * Traits that are unknown in an initial species may take either state at no cost.
+ *
+ * @see StepCosts
+ * @author Krischan Woehrer
+ */
+public class SankoffParsimony {
+    // Subtree cost of a state an initial species does not have. Large enough to never be picked,
+    // small enough that adding step costs to it cannot overflow.
+    private static final long IMPOSSIBLE = Long.MAX_VALUE / 4;
+
+    /**
+     * This method takes a rooted tree and sets the trait states of every ancestor node to the
+     * states that result in the smallest weighted parsimony score of the tree.
+     * @param tree A rooted tree containing species and their ancestors.
+     * @param stepCosts The cost of every change of every trait.
+     * @return The weighted parsimony score of the tree.
+     * @throws IllegalArgumentException If the step costs are not for the traits of the tree, or
+     *      the score is too large for an int.
+     */
+    public static int findMostParsimoniousTree(RootedTree tree, StepCosts stepCosts) {
+        TreeIndex index = new TreeIndex(tree.getRoot());
+        final int NUMBER_OF_TRAITS = tree.getInitialSpecies().get(0).getNumberOfTraits();
+        if (stepCosts.getNumberOfTraits() != NUMBER_OF_TRAITS) {
+            throw new IllegalArgumentException("The step costs are for "
+                + stepCosts.getNumberOfTraits() + " traits, the tree has " + NUMBER_OF_TRAITS
+                + " traits.");
+        }
+        int[][] traitMatrix = FitchParsimony.createTraitMatrix(index, NUMBER_OF_TRAITS);
+        long[] absentCosts = new long[index.size()];
+        long[] presentCosts = new long[index.size()];
+
+        long parsimonyScore = 0;
+        for (int i = 0; i < NUMBER_OF_TRAITS; i++) {
+            parsimonyScore +=
+                solveTrait(index, traitMatrix, i, stepCosts, absentCosts, presentCosts);
+        }
+        FitchParsimony.applyTraitMatrix(index, traitMatrix);
+
+        if (parsimonyScore > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The weighted parsimony score " + parsimonyScore
+                + " is too large, an irreversible trait may be unavoidably changed.");
+        }
+        return (int) parsimonyScore;
+    }
+
+    /**
+     * This method runs both passes of Sankoff's algorithm on a single trait and stores the value
+     * of that trait for every ancestor node in the trait matrix.
+     * @param index The indexed tree.
+     * @param traitMatrix The trait matrix created by FitchParsimony.createTraitMatrix.
+     * @param traitIndex The trait (column of the trait matrix) to solve.
+     * @param stepCosts The cost of every change of every trait.
+     * @param absentCosts A scratch array with one element per node. Its contents are overwritten.
+     * @param presentCosts A scratch array with one element per node. Its contents are overwritten.
+     * @return The smallest weighted cost of this trait on the tree.
+     */
+    static long solveTrait(TreeIndex index, int[][] traitMatrix, int traitIndex,
+        StepCosts stepCosts, long[] absentCosts, long[] presentCosts) {
+        Species[] nodes = index.getNodes();
+        int[] left = index.getLeftDescendants();
+        int[] right = index.getRightDescendants();
+        int[] ancestor = index.getAncestors();
+        final int NUMBER_OF_NODES = index.size();
+        final long KEEP_ABSENT = stepCosts.getCost(traitIndex, StepCosts.ABSENT, StepCosts.ABSENT);
+        final long GAIN = stepCosts.getCost(traitIndex, StepCosts.ABSENT, StepCosts.PRESENT);
+        final long LOSS = stepCosts.getCost(traitIndex, StepCosts.PRESENT, StepCosts.ABSENT);
+        final long KEEP_PRESENT =
+            stepCosts.getCost(traitIndex, StepCosts.PRESENT, StepCosts.PRESENT);
+
+        // Bottom-up pass. Nodes are in post-order so both descendants are visited before their
+        // ancestor. The cost of a state is the cheapest way to reach each descendant from it.
+        for (int i = 0; i < NUMBER_OF_NODES; i++) {
+            if (left[i] == -1) {
+                long[] unknownBits = nodes[i].getUnknownTraitBits();
+                if (unknownBits != null && TraitBits.isSet(unknownBits, traitIndex)) {
+                    absentCosts[i] = 0;
+                    presentCosts[i] = 0;
+                } else if (TraitBits.isSet(nodes[i].getTraitBits(), traitIndex)) {
+                    absentCosts[i] = IMPOSSIBLE;
+                    presentCosts[i] = 0;
+                } else {
+                    absentCosts[i] = 0;
+                    presentCosts[i] = IMPOSSIBLE;
+                }
+            } else {
+                int l = left[i];
+                int r = right[i];
+                absentCosts[i] = Math.min(KEEP_ABSENT + absentCosts[l], GAIN + presentCosts[l])
+                    + Math.min(KEEP_ABSENT + absentCosts[r], GAIN + presentCosts[r]);
+                presentCosts[i] = Math.min(LOSS + absentCosts[l], KEEP_PRESENT + presentCosts[l])
+                    + Math.min(LOSS + absentCosts[r], KEEP_PRESENT + presentCosts[r]);
+            }
+        }
+
+        // Top-down pass. The root is visited first and takes its cheapest state, then every
+        // ancestor node takes its cheapest state given the state of its own ancestor. Ties keep the
+        // state of the ancestor, and are otherwise broken towards the trait being absent.
+        final int ROOT = NUMBER_OF_NODES - 1;
+        for (int i = ROOT; i >= 0; i--) {
+            if (left[i] == -1) {
+                continue;
+            }
+            long absent;
+            long present;
+            int tieValue = 0;
+            if (ancestor[i] == -1) {
+                absent = absentCosts[i];
+                present = presentCosts[i];
+            } else if (traitMatrix[ancestor[i]][traitIndex] == 1) {
+                absent = LOSS + absentCosts[i];
+                present = KEEP_PRESENT + presentCosts[i];
+                tieValue = 1;
+            } else {
+                absent = KEEP_ABSENT + absentCosts[i];
+                present = GAIN + presentCosts[i];
+            }
+            traitMatrix[i][traitIndex] = present < absent || (present == absent && tieValue == 1)
+                ? 1 : 0;
+        }
+
+        return Math.min(absentCosts[ROOT], presentCosts[ROOT]);
+    }
+}
@@ -0,0 +1,155 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class contains the progress counters of a parsimony search: the number of trait states
+ * explored, the number of partial trees pruned, the best parsimony score found so far and the
+ * time elapsed since the search started.
+ *
+ * The search only increments counters, it never writes to the console. The counters can be read
+ * at any time from another thread, and a reporter thread can be started that prints them at a
+ * fixed interval.
+ *
+ * @author Krischan Woehrer
+ */
+public class SearchProgress {
+    private final LongAdder nodesExplored = new LongAdder();
+    private final LongAdder prunes = new LongAdder();
+    private final AtomicInteger bestScore = new AtomicInteger(Integer.MAX_VALUE);
+    private final long startTime = System.nanoTime();
+    private volatile long endTime = -1;
+    private Thread reporter;
+
+    /**
+     * This method records that a trait state of an ancestor node was explored.
+     */
+    public void nodeExplored() {
+        this.nodesExplored.increment();
+    }
+
+    /**
+     * This method records that a partial tree was pruned because it could not beat the best tree.
+     */
+    public void pruned() {
+        this.prunes.increment();
+    }
+
+    /**
+     * This method records a parsimony score of a complete tree. The best score only changes if the
+     * score is smaller.
+     * @param score The parsimony score of a complete tree.
+     */
+    public void scoreFound(int score) {
+        this.bestScore.accumulateAndGet(score, Math::min);
+    }
+
+    /**
+     * This method records that the search has finished, which stops the elapsed time.
+     */
+    public void finished() {
+        this.endTime = System.nanoTime();
+    }
+
+    /**
+     * This is an accessor method that returns the number of trait states explored.
+     * @return The number of trait states explored.
+     */
+    public long getNodesExplored() {
+        return this.nodesExplored.sum();
+    }
+
+    /**
+     * This is an accessor method that returns the number of partial trees pruned.
+     * @return The number of partial trees pruned.
+     */
+    public long getPrunes() {
+        return this.prunes.sum();
+    }
+
+    /**
+     * This is an accessor method that returns the best parsimony score found so far.
+     * @return The best parsimony score, Integer.MAX_VALUE if no tree has been scored.
+     */
+    public int getBestScore() {
+        return this.bestScore.get();
+    }
+
+    /**
+     * This is an accessor method that returns the time since the search started, or the duration
+     * of the search if it has finished.
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        long end = this.endTime < 0 ? System.nanoTime() : this.endTime;
+        return (end - this.startTime) / 1_000_000;
+    }
+
+    /**
+     * This method returns a single line describing the counters.
+     * @return The counters as a string.
+     */
+    @Override
+    public String toString() {
+        return "Explored " + this.getNodesExplored() + " trait states, pruned "
+            + this.getPrunes() + " partial trees, best parsimony score " + this.getBestScore()
+            + ", " + (this.getElapsedMillis() / 1000.0) + " seconds elapsed";
+    }
+
+    /**
+     * This method starts a daemon thread that prints the counters at a fixed interval until
+     * stopReporter is called.
+     * @param intervalMillis The time between reports in milliseconds.
+     * @param output The stream the reports are printed to.
+     */
+    public synchronized void startReporter(final long intervalMillis, final PrintStream output) {
+        if (this.reporter != null) {
+            return;
+        }
+        this.reporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        Thread.sleep(intervalMillis);
+                        output.println(SearchProgress.this);
+                    }
+                } catch (InterruptedException e) {
+                    // Stopped by stopReporter
+                }
+            }
+        }, "parsimony-progress");
+        this.reporter.setDaemon(true);
+        this.reporter.start();
+    }
+
+    /**
+     * This method stops the reporter thread if one was started.
+     */
+    public synchronized void stopReporter() {
+        if (this.reporter != null) {
+            this.reporter.interrupt();
+            this.reporter = null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class hands out the ForkJoinPools that distances and parsimony are calculated on. Pools
+ * are shared between calls instead of being created and shut down every time, as starting their
+ * threads can take longer than a small tree takes to calculate. The common ForkJoinPool is used
+ * when it has the requested number of threads, other pools are created once for each number of
+ * threads. Pool threads are daemon threads, so shared pools do not keep the program running.
+ *
+ * @author Krischan Woehrer
+ */
+public class SharedPools {
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS =
+        new ConcurrentHashMap<Integer, ForkJoinPool>();
+
+    /**
+     * This method returns a shared pool with a number of threads.
+     * @param parallelism The number of threads of the pool, at least 1.
+     * @return The common ForkJoinPool if it has that many threads, otherwise a shared pool.
+     */
+    public static ForkJoinPool withParallelism(int parallelism) {
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+}
@@ -0,0 +1,133 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * This class is a grid of chars that only stores the chars that are drawn on it. A drawing of a
+ * tree is mostly empty space, so instead of a dense char[rows][width] array every row keeps a list
+ * of the chars written to it and their columns. Empty columns are written as spaces when a row is
+ * output, so the memory used grows with the amount drawn rather than with rows * width.
+ *
+ * Chars can be drawn in any order and over each other, the last char drawn at a column is kept.
+ *
+ * @author Krischan Woehrer
+ */
+public class SparseCanvas {
+    private static final int INITIAL_ROW_CAPACITY = 8;
+
+    private final int numberOfRows;
+    private final int width;
+    // For every row, the column of each char drawn in the upper 32 bits and the order it was drawn
+    // in the lower 32 bits, so sorting a row orders it by column and then by drawing order
+    private final long[][] columnsAndOrders;
+    // The chars drawn on every row, indexed by the order they were drawn in
+    private final char[][] chars;
+    private final int[] numberOfChars;
+    private final boolean[] isRowSorted;
+
+    /**
+     * Constructor method that creates an empty canvas. No memory is used by a row until a char is
+     * drawn on it.
+     * @param numberOfRows The number of rows.
+     * @param width The number of columns of every row.
+     */
+    public SparseCanvas(int numberOfRows, int width) {
+        this.numberOfRows = numberOfRows;
+        this.width = width;
+        this.columnsAndOrders = new long[numberOfRows][];
+        this.chars = new char[numberOfRows][];
+        this.numberOfChars = new int[numberOfRows];
+        this.isRowSorted = new boolean[numberOfRows];
+    }
+
+    /**
+     * This method draws a char at a position of the canvas.
+     * @param row The row of the char.
+     * @param column The column of the char.
+     * @param c The char to draw.
+     * @throws ArrayIndexOutOfBoundsException If the position is outside the canvas.
+     */
+    public void put(int row, int column, char c) {
+        if (row < 0 || row >= this.numberOfRows || column < 0 || column >= this.width) {
+            throw new ArrayIndexOutOfBoundsException("Position (" + row + ", " + column
+                + ") out of bounds for a canvas of " + this.numberOfRows + " x " + this.width);
+        }
+        int count = this.numberOfChars[row];
+        if (this.chars[row] == null) {
+            this.columnsAndOrders[row] = new long[INITIAL_ROW_CAPACITY];
+            this.chars[row] = new char[INITIAL_ROW_CAPACITY];
+        } else if (count == this.chars[row].length) {
+            this.columnsAndOrders[row] = Arrays.copyOf(this.columnsAndOrders[row], count * 2);
+            this.chars[row] = Arrays.copyOf(this.chars[row], count * 2);
+        }
+        this.columnsAndOrders[row][count] = ((long) column << 32) | count;
+        this.chars[row][count] = c;
+        this.numberOfChars[row] = count + 1;
+        this.isRowSorted[row] = false;
+    }
+
+    /**
+     * This method writes a row of the canvas, with every column that was not drawn on written as a
+     * space. Null chars are also written as spaces so text editors display the row properly.
+     * @param writer The writer the row is written to.
+     * @param row The row to write.
+     * @throws IOException If the writer cannot be written to.
+     */
+    public void writeRow(Writer writer, int row) throws IOException {
+        final int COUNT = this.numberOfChars[row];
+        long[] rowColumnsAndOrders = this.columnsAndOrders[row];
+        if (!this.isRowSorted[row] && COUNT > 1) {
+            Arrays.sort(rowColumnsAndOrders, 0, COUNT);
+            this.isRowSorted[row] = true;
+        }
+        int nextColumn = 0;
+        for (int i = 0; i < COUNT; i++) {
+            int column = (int) (rowColumnsAndOrders[i] >>> 32);
+            // Only the last char drawn at a column is kept
+            if (i + 1 < COUNT && (int) (rowColumnsAndOrders[i + 1] >>> 32) == column) {
+                continue;
+            }
+            char c = this.chars[row][(int) rowColumnsAndOrders[i]];
+            Output.writeRepeatedChar(writer, ' ', column - nextColumn);
+            writer.write(c == 0 ? ' ' : c);
+            nextColumn = column + 1;
+        }
+        Output.writeRepeatedChar(writer, ' ', this.width - nextColumn);
+    }
+
+    /**
+     * This is an accessor method that returns the number of rows of the canvas.
+     * @return The number of rows.
+     */
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    /**
+     * This is an accessor method that returns the number of columns of every row of the canvas.
+     * @return The width of the canvas.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+}
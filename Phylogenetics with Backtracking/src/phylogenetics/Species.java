@@ -18,24 +18,35 @@ package phylogenetics;
 //
 /////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
 
-import java.lang.IndexOutOfBoundsException;
-
+import java.util.ArrayDeque;
 
 /**
  * This class is an instance based class that contains various methods for generating
  * and manipulating species objects and their appropriate fields.
+ * 
+ * Traits are stored as packed bitsets (@see TraitBits) and every comparison between species is done
+ * 64 traits at a time with XOR and Long.bitCount. The int array form of the traits is only created
+ * when getTraits is called.
  * @author Krischan Woehrer
  *
  */
 public class Species {
     private int[] traits;
-    private int[][] possibleTraitStates;
+    private long[] traitBits;
+    private long[] unknownTraitBits;
+    private int numberOfTraits;
+    private PossibleTraitStates possibleTraitStates;
     private boolean isDescendantSpecies = true;
     private boolean isAncestor = false;
     private Species ancestor;
     private Species[] descendants;
     private String name;
     private int height;
+    // Number of initial species that descend from this species, and how many of them have each
+    // trait present. The counts are only stored for ancestor nodes once they are first needed, an
+    // initial species counts itself.
+    private int numberOfInitialDescendants = 1;
+    private int[] traitPresenceCounts;
     private int[] locationOnTree;
 
     /**
@@ -45,12 +56,27 @@ public class Species {
      * @param numberOfTraits Number of traits 
      */
     public Species(String name, String inputTraitsStr, int numberOfTraits) {
-        this.traits = new int[numberOfTraits];
+        int[] traits = new int[numberOfTraits];
         this.name = name;
+        String[] inputTraits = inputTraitsStr.split(" ");
         for (int i = 0; i < numberOfTraits; i++) {
-            String[] inputTraits = inputTraitsStr.split(" ");
-            this.traits[i] = Integer.parseInt(inputTraits[i]);
+            traits[i] = Integer.parseInt(inputTraits[i]);
         }
+        this.setTraits(traits);
+    }
+
+    /**
+     * Constructor method that creates a species object of subtype descendant species from traits
+     * that are already packed into a bitset. No int array is created for the traits.
+     * @param name The name of the species
+     * @param traitBits A bitset with a bit set for every trait that is present
+     * @param numberOfTraits Number of traits
+     */
+    public Species(String name, long[] traitBits, int numberOfTraits) {
+        this.name = name;
+        this.traitBits = traitBits;
+        this.numberOfTraits = numberOfTraits;
+        this.setDescendantSpeciesStatus();
     }
 
     /**
@@ -60,7 +86,7 @@ public class Species {
      * @param isDescendantSpecies
      */
     public Species(int[] traits, boolean isDescendantSpecies) {
-        this.traits = traits;
+        this.setTraits(traits);
         this.setDescendantSpeciesStatus();
     }
 
@@ -72,7 +98,7 @@ public class Species {
      */
     public Species(String name, int[] traits, boolean isDescendantSpecies) {
         this.name = name;
-        this.traits = traits;
+        this.setTraits(traits);
         this.setDescendantSpeciesStatus();
     }
 
@@ -89,17 +115,8 @@ public class Species {
      * @return A similarity score.
      */
     public int getSimilarityValue(Species species2) {
-        int similarityScore = 0;
-        for (int i = 0; i < this.traits.length; i++) {
-            try {
-                if (this.traits[i] == species2.getTraits()[i]) {
-                    similarityScore++;
-                }
-            } catch (IndexOutOfBoundsException e) {
-                System.out.println("Not all species have the same number of traits");
-            }
-        }
-        return similarityScore;
+        int numberOfComparableTraits = this.numberOfComparableTraits(species2);
+        return numberOfComparableTraits - this.countDifferences(species2, numberOfComparableTraits);
     }
 
     /**
@@ -108,19 +125,27 @@ public class Species {
      * @return
      */
     public int getParsimonyScoreToDescendants() {
-        int parsimonyScore = 0;
         Species leftDescendant = this.getDescendants()[0];
         Species rightDescendant = this.getDescendants()[1];
 
-        for (int i = 0; i < this.getTraits().length; i++) {
-            if (leftDescendant.getTraits()[i] != this.getTraits()[i]) {
-                parsimonyScore++;
-            }
-            if (rightDescendant.getTraits()[i] != this.getTraits()[i]) {
+        return this.countDifferences(leftDescendant, this.numberOfTraits)
+            + this.countDifferences(rightDescendant, this.numberOfTraits);
+    }
+
+    /**
+     * This method calculates the parsimony value of a single trait of this species to its direct
+     * descendants.
+     * @param trait The index of the trait.
+     * @return The number of descendants (0, 1 or 2) whose value of the trait differs.
+     */
+    public int getParsimonyScoreToDescendants(int trait) {
+        int parsimonyScore = 0;
+        for (Species descendant : this.getDescendants()) {
+            if (TraitBits.differs(this.traitBits, this.unknownTraitBits, descendant.traitBits,
+                descendant.unknownTraitBits, trait)) {
                 parsimonyScore++;
             }
         }
-
         return parsimonyScore;
     }
     
@@ -131,13 +156,7 @@ public class Species {
      * @return int the parsimony scores between these species
      */
     public int getParsimonyScore(Species species) {
-        int parsimonyScore = 0;
-        for (int i = 0; i < this.getTraits().length; i++) {
-            if (species.getTraits()[i] != this.getTraits()[i]) {
-                parsimonyScore++;
-            }
-        }
-        return parsimonyScore;
+        return this.countDifferences(species, this.numberOfTraits);
     }
 
     /**
@@ -146,17 +165,32 @@ public class Species {
      * @return The distance value(number of dissimilar traits) between species
      */
     public int getDistanceValue(Species species2) {
-        int distanceValue = 0;
-        for (int i = 0; i < this.traits.length; i++) {
-            try {
-                if (this.traits[i] != species2.getTraits()[i]) {
-                    distanceValue++;
-                }
-            } catch (IndexOutOfBoundsException e) {
-                System.out.println("Not all species have the same number of traits");
-            }
+        return this.countDifferences(species2, this.numberOfComparableTraits(species2));
+    }
+
+    /**
+     * This method determines how many traits can be compared between this species and another
+     * species. A message is shown if the other species has fewer traits than this species.
+     * @param species2 Another species object that will be compared to this species
+     * @return The number of traits of this species, or of species2 if it has fewer traits.
+     */
+    private int numberOfComparableTraits(Species species2) {
+        if (species2.numberOfTraits < this.numberOfTraits) {
+            System.out.println("Not all species have the same number of traits");
+            return species2.numberOfTraits;
         }
-        return distanceValue;
+        return this.numberOfTraits;
+    }
+
+    /**
+     * This method counts the number of traits that differ between this species and another species.
+     * @param species2 Another species object that will be compared to this species
+     * @param numberOfTraitsToCompare The number of traits, starting from the first, to compare.
+     * @return The number of dissimilar traits.
+     */
+    private int countDifferences(Species species2, int numberOfTraitsToCompare) {
+        return TraitBits.countDifferences(this.traitBits, this.unknownTraitBits,
+            species2.traitBits, species2.unknownTraitBits, numberOfTraitsToCompare);
     }
 
     /**
@@ -166,12 +200,13 @@ public class Species {
      * @return A integer array containing the comparison array
      */
     public int[] compareWith(Species species2) {
-        int[] traitComparison = new int[this.traits.length];
-        for (int i = 0; i < traitComparison.length; i++) {
-            if (this.getTraits()[i] == species2.getTraits()[i]) {
-                traitComparison[i] = 1;
-            } else {
-                traitComparison[i] = 0;
+        int[] traitComparison = new int[this.numberOfTraits];
+        for (int word = 0; word < TraitBits.numberOfWords(this.numberOfTraits); word++) {
+            long sameTraits = ~TraitBits.differenceWord(this.traitBits, this.unknownTraitBits,
+                species2.traitBits, species2.unknownTraitBits, word);
+            int lastTraitOfWord = Math.min(traitComparison.length, (word + 1) << 6);
+            for (int i = word << 6; i < lastTraitOfWord; i++) {
+                traitComparison[i] = (int) ((sameTraits >>> i) & 1L);
             }
         }
 
@@ -180,18 +215,85 @@ public class Species {
 
     /**
      * This is an accessor method that returns the trait array of this species.
+     * The array is created from the packed traits the first time this method is called.
+     * Please Note: Changing the returned array DOES NOT change the traits of this species,
+     * use setTraits instead.
      * @return
      */
     public int[] getTraits() {
+        if (this.traits == null && this.traitBits != null) {
+            this.traits =
+                TraitBits.unpack(this.traitBits, this.unknownTraitBits, this.numberOfTraits);
+        }
         return this.traits;
     }
 
     /**
      * This is a mutator method that changes the trait array of the species.
+     * The packed bitsets of the traits are updated as well.
      * @param traits The new trait array for the species
      */
     public void setTraits(int[] traits) {
         this.traits = traits;
+        if (traits == null) {
+            this.traitBits = null;
+            this.unknownTraitBits = null;
+            this.numberOfTraits = 0;
+        } else {
+            this.traitBits = TraitBits.packPresent(traits);
+            this.unknownTraitBits = TraitBits.packUnknown(traits);
+            this.numberOfTraits = traits.length;
+        }
+    }
+
+    /**
+     * This is a mutator method that changes the traits of the species to already packed bitsets.
+     * The number of traits does not change.
+     * @param traitBits A bitset with a bit set for every trait that is present.
+     * @param unknownTraitBits A bitset with a bit set for every trait that is unknown, may be null.
+     */
+    public void setTraitBits(long[] traitBits, long[] unknownTraitBits) {
+        this.traits = null;
+        this.traitBits = traitBits;
+        this.unknownTraitBits = unknownTraitBits;
+    }
+
+    /**
+     * This is a mutator method that changes a present trait to absent, or an absent trait to
+     * present. The trait must not be unknown.
+     * @param trait The index of the trait.
+     */
+    public void flipTrait(int trait) {
+        this.traits = null;
+        TraitBits.flip(this.traitBits, trait);
+    }
+
+    /**
+     * This is an accessor method that returns the packed bitset of the present traits of this
+     * species.
+     * @see TraitBits for how traits are packed
+     * @return A bitset with a bit set for every trait that is present.
+     */
+    public long[] getTraitBits() {
+        return this.traitBits;
+    }
+
+    /**
+     * This is an accessor method that returns the packed bitset of the unknown traits (-1) of this
+     * species.
+     * @see TraitBits for how traits are packed
+     * @return A bitset with a bit set for every trait that is unknown, null if none are unknown.
+     */
+    public long[] getUnknownTraitBits() {
+        return this.unknownTraitBits;
+    }
+
+    /**
+     * This is an accessor method that returns the number of traits of this species.
+     * @return The number of traits.
+     */
+    public int getNumberOfTraits() {
+        return this.numberOfTraits;
     }
 
     /**
@@ -237,6 +339,91 @@ public class Species {
         } else {
             this.setHeight(speciesLeft.getHeight() + 1);
         }
+        // Descendants are always linked before their ancestor, so the counts of both descendants
+        // are already known and each node is only counted once. Trait presence is counted by
+        // getTraitPresenceCounts, as only some parsimony engines need it.
+        this.numberOfInitialDescendants =
+            speciesLeft.numberOfInitialDescendants + speciesRight.numberOfInitialDescendants;
+        this.traitPresenceCounts = null;
+    }
+
+    /**
+     * This method counts the present traits of the initial species that descend from this ancestor
+     * node, and of every ancestor node below it that has not been counted yet. Descendants are
+     * counted before their ancestor with an explicit stack, so deep trees do not overflow the call
+     * stack and each node is only counted once.
+     */
+    private void countTraitPresence() {
+        ArrayDeque<Species> stack = new ArrayDeque<Species>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Species current = stack.peek();
+            Species left = current.descendants[0];
+            Species right = current.descendants[1];
+            boolean isWaitingForDescendants = false;
+            if (left.isAncestor && left.traitPresenceCounts == null) {
+                stack.push(left);
+                isWaitingForDescendants = true;
+            }
+            if (right.isAncestor && right.traitPresenceCounts == null) {
+                stack.push(right);
+                isWaitingForDescendants = true;
+            }
+            if (isWaitingForDescendants) {
+                continue;
+            }
+
+            stack.pop();
+            int[] counts = new int[left.traitPresenceCounts != null
+                ? left.traitPresenceCounts.length : left.numberOfTraits];
+            left.addTraitPresenceCounts(counts);
+            right.addTraitPresenceCounts(counts);
+            current.traitPresenceCounts = counts;
+        }
+    }
+
+    /**
+     * This method adds the number of initial species, that descend from this species, with each
+     * trait present to an array of counts.
+     * @param counts The array of counts to add to, with one count for every trait.
+     */
+    private void addTraitPresenceCounts(int[] counts) {
+        if (this.traitPresenceCounts != null) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += this.traitPresenceCounts[i];
+            }
+        } else if (this.traitBits != null) {
+            for (int word = 0; word < this.traitBits.length; word++) {
+                long presentWord = this.traitBits[word];
+                while (presentWord != 0) {
+                    counts[word * Long.SIZE + Long.numberOfTrailingZeros(presentWord)]++;
+                    presentWord &= presentWord - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * This is an accessor method that returns the number of initial species that descend from
+     * this species.
+     * @return The number of initial species in the subtree of this species, 1 for an initial
+     *      species.
+     */
+    public int getNumberOfInitialDescendants() {
+        return this.numberOfInitialDescendants;
+    }
+
+    /**
+     * This is an accessor method that returns how many initial species that descend from this
+     * ancestor node have each trait present. The counts are determined the first time this method
+     * is called on this ancestor node or on an ancestor of it.
+     * @return An array with a count for every trait, null if this species is not an ancestor node.
+     */
+    public int[] getTraitPresenceCounts() {
+        if (this.traitPresenceCounts == null && this.isAncestor) {
+            this.countTraitPresence();
+        }
+        return this.traitPresenceCounts;
     }
 
     /**
@@ -370,9 +557,9 @@ public class Species {
     /**
      * This method returns the possible trait states of this species. Only applicable to
      * species that are of subtype ancestors.
-     * @return An array of integer arrays that correlate to possible trait states of this species.
+     * @return The possible trait states of this species.
      */
-    public int[][] getPossibleTraitStates() {
+    public PossibleTraitStates getPossibleTraitStates() {
         return this.possibleTraitStates;
     }
 
@@ -392,17 +579,16 @@ public class Species {
      *      same value in the ancestor as this results in a net parsimony score change of 0.
      *      If the descendants have different trait values for a trait, then the trait value
      *      for the ancestor is stored as a -1 as we cannot infer the trait status from the 
-     *      descendants. Once every element has a value in the traits array, then the 
-     *      possible trait states are determined by using the determineAllPossibleStates method.
-     *      @see Species.determineAllPossibleStates
+     *      descendants. Every trait with a -1 is a variable trait that is either 0 or 1 in
+     *      each possible trait state.
+     *      The possible trait states are not created, they are enumerated one at a time.
+     *      @see PossibleTraitStates
      *      
      *      
-     * @return int[][] An array of trait states. Trait states are an array of integers that correlate
-     *      to the presence/abscence of traits in a species.
+     * @return The possible trait states, described by their template.
      */
-    public int[][] possibleStates() {
-        final int NUM_OF_TRAITS = this.descendants[0].getTraits().length;
-        int[][] possibleTraitStates = null;
+    public PossibleTraitStates possibleStates() {
+        final int NUM_OF_TRAITS = this.descendants[0].getNumberOfTraits();
 
         // Find traits that you know will be true in ancestor
         int[] templateTraits = new int[NUM_OF_TRAITS];
@@ -410,125 +596,14 @@ public class Species {
         int i = 0;
         for (int trait : this.descendants[0].compareWith(descendants[1])) {
             if (trait == 1) {
-                templateTraits[i] = this.descendants[0].traits[i];
+                templateTraits[i] = this.descendants[0].getTraits()[i];
             } else {
                 templateTraits[i] = -1;
             }
             i++;
         }
         this.setTraits(templateTraits);
-        
-        //Determine all possible trait states based off of missing traits
-        int numOfPossibleTraitStates = countOfPossibleTraitStates(templateTraits);
-        possibleTraitStates = new int[numOfPossibleTraitStates][NUM_OF_TRAITS];
-
-        // Initialize each traitState with copy of template
-        for (int j = 0; j < numOfPossibleTraitStates; j++) {
-            possibleTraitStates[j] = copyIntArr(templateTraits);
-        }
-        determineAllPossibleStates(possibleTraitStates, numOfPossibleTraitStates, 1);
-
-        return possibleTraitStates;
-    }
-
-    /**
-     * This method creates a deep copy of an array of integers.
-     * @param templateTraits The integer array to be copied
-     * @return A deep copy of the array.
-     */
-    private int[] copyIntArr(int[] templateTraits) {
-        int[] copy = new int[templateTraits.length];
-        for (int i = 0; i < templateTraits.length; i++) {
-            copy[i] = templateTraits[i];
-        }
-        return copy;
-    }
-
-    /**
-     * This method counts the number of variable traits(trait value = -1) in an incomplete trait array
-     * @param traitArr An array of integers/traits.
-     * @return int The number of variable traits (traits with -1 for a value).
-     */
-    private int countNumberOfVariableTraits(int[] traitArr) {
-        int variableTraitCount = 0;
-        for (int trait : traitArr) {
-            if (trait == -1) {
-                variableTraitCount++;
-            }
-        }
-        return variableTraitCount;
-    }
 
-    /**
-     * This method returns the number of possible trait states based on the number of traits with a value of -1
-     * in a trait array.
-     * @param traitArr An array of integers/traits.
-     * @return int The number of possible trait states.
-     */
-    private int countOfPossibleTraitStates(int[] traitArr) {
-        final int NUM_VARIABLE_TRAITS = countNumberOfVariableTraits(traitArr);
-        int numOfPossibleTraitStates = 1;
-        // Executes 2^numOfPossibleTraitStates without importing java.lang.Math
-        for (int i = 0; i < NUM_VARIABLE_TRAITS; i++) {
-            numOfPossibleTraitStates *= 2;
-        }
-        return numOfPossibleTraitStates;
-    }
-
-    /**
-     * This is a recursive method that populates the possibleTraitStates member variable array.
-     * Algorithm:
-     *      First we find the index for the first -1 (variable/undefined trait) in the possible
-     *      trait state array for the ancestor species. If a -1 is present, the index is stored,
-     *      if not present a -2 is stored so the program may exit as all trait states have been
-     *      generated.
-     *      Second, a loop for populates each the of possible trait states with either a 0 or a 1
-     *      at the first index determined to contain a -1.
-     *      Third, the method recursively calls itself if our current number of trait states is less
-     *      than the calculated number of possible states for this species. If our current number of
-     *      trait states is equal to (or greater than which theoretically should never happen) the
-     *      number of possible trait states then the method returns.
-     * 
-     *     
-     * @param possibleTraitStates An array of various trait states to be populated. Trait states
-     *      should contain both defined traits (0 or 1) or undefined/variable traits (-1)
-     * @param numOfPossibleTraitStates The number of possible trait states.
-     * @param currentNumOfTraitStates The current number of trait states that we have generated
-     */
-    private void determineAllPossibleStates(int[][] possibleTraitStates,
-        int numOfPossibleTraitStates, int currentNumOfTraitStates) {
-        int indexOfFirstVariableTrait = -2;
-        // Finds first index of -1, in other words it finds the index of the first variable trait
-        for (int i = 0; i < possibleTraitStates[0].length; i++) {
-            if (possibleTraitStates[0][i] == -1) {
-                indexOfFirstVariableTrait = i;
-                break;
-            }
-        }
-        // Exit condition 1, this should only occur when the method is called on an ancestor whose
-        // descendants share the exact same trait states
-        if (indexOfFirstVariableTrait == -2) {
-            return;
-        }
-
-        // The *2 here allows us to later determine if we have generated all possible trait states
-        // This loop populates all the variable trait with either 0 or 1 in all possible trait state
-        // elements
-        for (int i = (currentNumOfTraitStates *= 2) - 1; i > (currentNumOfTraitStates / 2)
-            - 1; i--) {
-            possibleTraitStates[i] =
-                copyIntArr(possibleTraitStates[i - ((currentNumOfTraitStates / 2))]);
-            possibleTraitStates[i][indexOfFirstVariableTrait] = 1;
-            possibleTraitStates[i - ((currentNumOfTraitStates / 2))][indexOfFirstVariableTrait] = 0;
-        }
-        // Exit condition 2, Exit recursive method call when all possible trait states have been
-        // generated
-        if (currentNumOfTraitStates < numOfPossibleTraitStates) {
-            determineAllPossibleStates(possibleTraitStates, numOfPossibleTraitStates,
-                currentNumOfTraitStates);
-        } else {
-            return;
-        }
-        return;
+        return new PossibleTraitStates(templateTraits);
     }
 }
@@ -0,0 +1,165 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * This class contains the cost of every change of every trait, used by weighted parsimony. Each
+ * trait has its own 2 x 2 cost matrix, where the cost of changing from state 0 (absent) or 1
+ * (present) on an ancestor to a state on its descendant is stored. Unchanged traits cost nothing
+ * unless a cost is set for them.
+ *
+ * Every change costs 1 by default, which gives the same parsimony score as unweighted parsimony.
+ * A trait that is hard to gain but easy to lose (Dollo-like) is given a large gain cost, and a
+ * trait that can never be lost (irreversible) is given a loss cost larger than any tree could
+ * otherwise score.
+ *
+ * Costs are stored in a single int array with four entries per trait, so no object is created per
+ * trait.
+ *
+ * @see SankoffParsimony
+ * @author Krischan Woehrer
+ */
+public class StepCosts {
+    public static final int ABSENT = 0;
+    public static final int PRESENT = 1;
+
+    private final int numberOfTraits;
+    // The cost of trait t changing from state a to state b is at index 4 * t + 2 * a + b
+    private final int[] costs;
+
+    /**
+     * Constructor method that creates step costs where every change of every trait costs 1.
+     * @param numberOfTraits The number of traits per species.
+     */
+    public StepCosts(int numberOfTraits) {
+        this.numberOfTraits = numberOfTraits;
+        this.costs = new int[4 * numberOfTraits];
+        for (int i = 0; i < numberOfTraits; i++) {
+            this.setGainAndLossCosts(i, 1, 1);
+        }
+    }
+
+    /**
+     * This method reads step costs from a text file. Each line contains a trait number (starting
+     * from 1, as in the input file) or * for every trait, followed by the cost of gaining the trait
+     * and the cost of losing it. Later lines override earlier lines, blank lines and lines
+     * starting with # are ignored, and traits that are not listed keep a cost of 1.
+     *
+     * For example "* 1 1" followed by "3 4 1" makes trait 3 four times as costly to gain.
+     * @param fileName The name of the step cost file.
+     * @param numberOfTraits The number of traits per species.
+     * @return The step costs.
+     * @throws IOException If the file cannot be read or a line is not valid.
+     */
+    public static StepCosts readFromFile(String fileName, int numberOfTraits) throws IOException {
+        StepCosts stepCosts = new StepCosts(numberOfTraits);
+        BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != 3) {
+                    throw new IOException(fileName + " line " + lineNumber
+                        + ": expected a trait, a gain cost and a loss cost.");
+                }
+                try {
+                    int gainCost = Integer.parseInt(fields[1]);
+                    int lossCost = Integer.parseInt(fields[2]);
+                    if (fields[0].equals("*")) {
+                        for (int i = 0; i < numberOfTraits; i++) {
+                            stepCosts.setGainAndLossCosts(i, gainCost, lossCost);
+                        }
+                    } else {
+                        int trait = Integer.parseInt(fields[0]) - 1;
+                        if (trait < 0 || trait >= numberOfTraits) {
+                            throw new IOException(fileName + " line " + lineNumber + ": trait "
+                                + fields[0] + " is not between 1 and " + numberOfTraits + ".");
+                        }
+                        stepCosts.setGainAndLossCosts(trait, gainCost, lossCost);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(fileName + " line " + lineNumber + ": "
+                        + e.getMessage());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return stepCosts;
+    }
+
+    /**
+     * This is a mutator method that changes the cost of a trait changing between two states.
+     * @param trait The index of the trait.
+     * @param fromState The state of the trait on the ancestor, ABSENT or PRESENT.
+     * @param toState The state of the trait on the descendant, ABSENT or PRESENT.
+     * @param cost The cost of the change.
+     * @throws IllegalArgumentException If the cost is negative.
+     */
+    public void setCost(int trait, int fromState, int toState, int cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Step costs cannot be negative: " + cost);
+        }
+        this.costs[4 * trait + 2 * fromState + toState] = cost;
+    }
+
+    /**
+     * This is a mutator method that changes the cost of gaining and losing a trait. Keeping the
+     * trait unchanged costs nothing.
+     * @param trait The index of the trait.
+     * @param gainCost The cost of the trait changing from absent to present.
+     * @param lossCost The cost of the trait changing from present to absent.
+     * @throws IllegalArgumentException If a cost is negative.
+     */
+    public void setGainAndLossCosts(int trait, int gainCost, int lossCost) {
+        this.setCost(trait, ABSENT, ABSENT, 0);
+        this.setCost(trait, ABSENT, PRESENT, gainCost);
+        this.setCost(trait, PRESENT, ABSENT, lossCost);
+        this.setCost(trait, PRESENT, PRESENT, 0);
+    }
+
+    /**
+     * This is an accessor method that returns the cost of a trait changing between two states.
+     * @param trait The index of the trait.
+     * @param fromState The state of the trait on the ancestor, ABSENT or PRESENT.
+     * @param toState The state of the trait on the descendant, ABSENT or PRESENT.
+     * @return The cost of the change.
+     */
+    public int getCost(int trait, int fromState, int toState) {
+        return this.costs[4 * trait + 2 * fromState + toState];
+    }
+
+    /**
+     * This is an accessor method that returns the number of traits.
+     * @return The number of traits.
+     */
+    public int getNumberOfTraits() {
+        return this.numberOfTraits;
+    }
+}
@@ -0,0 +1,197 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This class contains static methods for storing trait arrays as packed bitsets. Trait i is stored
+ * in bit (i % 64) of word (i / 64). A trait array is represented by two bitsets:
+ *      present - a bit is set if the trait is present (1).
+ *      unknown - a bit is set if the trait value has not been determined yet (-1). Ancestor nodes
+ *          use this while their possible trait states are being generated. Null if no trait is
+ *          unknown.
+ * Unknown traits never have their present bit set, so two traits differ exactly when the present
+ * bits or the unknown bits differ.
+ *
+ * @author Krischan Woehrer
+ */
+public class TraitBits {
+
+    /**
+     * This method returns the number of longs needed to store a number of traits.
+     * @param numberOfTraits The number of traits.
+     * @return The number of 64 bit words needed.
+     */
+    public static int numberOfWords(int numberOfTraits) {
+        return (numberOfTraits + 63) >>> 6;
+    }
+
+    /**
+     * This method packs the present traits (value of 1) of a trait array into a bitset.
+     * @param traits An array of 0's, 1's and possibly -1's.
+     * @return A bitset with a bit set for every trait with a value of 1.
+     */
+    public static long[] packPresent(int[] traits) {
+        long[] present = new long[numberOfWords(traits.length)];
+        for (int i = 0; i < traits.length; i++) {
+            if (traits[i] == 1) {
+                present[i >>> 6] |= 1L << i;
+            }
+        }
+        return present;
+    }
+
+    /**
+     * This method packs the unknown traits (value of -1) of a trait array into a bitset.
+     * @param traits An array of 0's, 1's and possibly -1's.
+     * @return A bitset with a bit set for every trait with a value of -1, or null if there are none.
+     */
+    public static long[] packUnknown(int[] traits) {
+        long[] unknown = null;
+        for (int i = 0; i < traits.length; i++) {
+            if (traits[i] == -1) {
+                if (unknown == null) {
+                    unknown = new long[numberOfWords(traits.length)];
+                }
+                unknown[i >>> 6] |= 1L << i;
+            }
+        }
+        return unknown;
+    }
+
+    /**
+     * This method converts a pair of bitsets back into a trait array.
+     * @param present The present bitset.
+     * @param unknown The unknown bitset, may be null.
+     * @param numberOfTraits The number of traits stored in the bitsets.
+     * @return An array of 0's, 1's and -1's.
+     */
+    public static int[] unpack(long[] present, long[] unknown, int numberOfTraits) {
+        int[] traits = new int[numberOfTraits];
+        for (int i = 0; i < numberOfTraits; i++) {
+            if (unknown != null && (unknown[i >>> 6] & (1L << i)) != 0) {
+                traits[i] = -1;
+            } else if ((present[i >>> 6] & (1L << i)) != 0) {
+                traits[i] = 1;
+            }
+        }
+        return traits;
+    }
+
+    /**
+     * This method determines if any bit past the last trait is set in the last word of a bitset.
+     * Those bits are never set by packing a trait array, so a bitset read from a file with any of
+     * them set is corrupt.
+     * @param bits A bitset of numberOfWords(numberOfTraits) words.
+     * @param numberOfTraits The number of traits stored in the bitset.
+     * @return True if a bit at or past numberOfTraits is set.
+     */
+    public static boolean hasBitsPastTraits(long[] bits, int numberOfTraits) {
+        final int USED_BITS_OF_LAST_WORD = numberOfTraits & 63;
+        if (bits.length == 0 || USED_BITS_OF_LAST_WORD == 0) {
+            return false;
+        }
+        return (bits[bits.length - 1] >>> USED_BITS_OF_LAST_WORD) != 0;
+    }
+
+    /**
+     * This method determines if a trait is set in a bitset.
+     * @param bits A bitset.
+     * @param trait The index of the trait.
+     * @return True if the bit for the trait is set.
+     */
+    public static boolean isSet(long[] bits, int trait) {
+        return (bits[trait >>> 6] & (1L << trait)) != 0;
+    }
+
+    /**
+     * This method sets the bit for a trait in a bitset.
+     * @param bits A bitset.
+     * @param trait The index of the trait.
+     */
+    public static void set(long[] bits, int trait) {
+        bits[trait >>> 6] |= 1L << trait;
+    }
+
+    /**
+     * This method flips the bit for a trait in a bitset.
+     * @param bits A bitset.
+     * @param trait The index of the trait.
+     */
+    public static void flip(long[] bits, int trait) {
+        bits[trait >>> 6] ^= 1L << trait;
+    }
+
+    /**
+     * This method determines if a single trait differs between two trait bitsets.
+     * @param presentA The present bitset of the first trait array.
+     * @param unknownA The unknown bitset of the first trait array, may be null.
+     * @param presentB The present bitset of the second trait array.
+     * @param unknownB The unknown bitset of the second trait array, may be null.
+     * @param trait The index of the trait.
+     * @return True if the trait has different values.
+     */
+    public static boolean differs(long[] presentA, long[] unknownA, long[] presentB,
+        long[] unknownB, int trait) {
+        return ((differenceWord(presentA, unknownA, presentB, unknownB, trait >>> 6) >>> trait)
+            & 1L) != 0;
+    }
+
+    /**
+     * This method counts the number of traits that differ between two trait bitsets. Only the
+     * first numberOfTraits traits are compared.
+     * @param presentA The present bitset of the first trait array.
+     * @param unknownA The unknown bitset of the first trait array, may be null.
+     * @param presentB The present bitset of the second trait array.
+     * @param unknownB The unknown bitset of the second trait array, may be null.
+     * @param numberOfTraits The number of traits to compare.
+     * @return The number of traits with different values.
+     */
+    public static int countDifferences(long[] presentA, long[] unknownA, long[] presentB,
+        long[] unknownB, int numberOfTraits) {
+        final int NUMBER_OF_FULL_WORDS = numberOfTraits >>> 6;
+        int differences = 0;
+        for (int i = 0; i < NUMBER_OF_FULL_WORDS; i++) {
+            differences += Long.bitCount(differenceWord(presentA, unknownA, presentB, unknownB, i));
+        }
+        if ((numberOfTraits & 63) != 0) {
+            long lastWordMask = (1L << numberOfTraits) - 1;
+            differences += Long.bitCount(
+                differenceWord(presentA, unknownA, presentB, unknownB, NUMBER_OF_FULL_WORDS)
+                    & lastWordMask);
+        }
+        return differences;
+    }
+
+    /**
+     * This method returns a word with a bit set for every trait that differs between two trait
+     * bitsets.
+     * @param presentA The present bitset of the first trait array.
+     * @param unknownA The unknown bitset of the first trait array, may be null.
+     * @param presentB The present bitset of the second trait array.
+     * @param unknownB The unknown bitset of the second trait array, may be null.
+     * @param word The index of the word to compare.
+     * @return The bits of the traits that differ.
+     */
+    public static long differenceWord(long[] presentA, long[] unknownA, long[] presentB,
+        long[] unknownB, int word) {
+        long unknownWordA = unknownA == null ? 0 : unknownA[word];
+        long unknownWordB = unknownB == null ? 0 : unknownB[word];
+        return (presentA[word] ^ presentB[word]) | (unknownWordA ^ unknownWordB);
+    }
+}
@@ -0,0 +1,62 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+/**
+ * This enum lists the formats a rooted tree can be written in.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public enum TreeFormat {
+    /**
+     * The tree drawn as text, followed by the species glossary. Written to a .txt file.
+     */
+    ASCII(".txt"),
+
+    /**
+     * A single Newick string that other phylogenetics programs can read. Written to a .nwk file.
+     * @see NewickWriter
+     */
+    NEWICK(".nwk"),
+
+    /**
+     * A NEXUS file with a TAXA block and a TREES block. Written to a .nex file.
+     * @see NewickWriter
+     */
+    NEXUS(".nex");
+
+    private final String extension;
+
+    /**
+     * Constructor method that creates a format.
+     * @param extension The extension of files written in the format.
+     */
+    private TreeFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * This is an accessor method that returns the extension of files written in the format.
+     * @return The extension, including the '.'.
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+}
@@ -0,0 +1,155 @@
+package phylogenetics;
+
+///////////////////////// TOP OF FILE COMMENT BLOCK ////////////////////////////
+//
+// Title: UPGMA based Phylogenetic Tree Creator
+//
+// Author: Krischan Woehrer
+// Email: kwoehrer@wisc.edu
+//
+///////////////////////////////// NOTES ////////////////////////////////////////
+//
+//
+///////////////////////////////// CITATIONS ////////////////////////////////////
+//
+// Source or Recipient; Description
+// UW-Madison Microbiology-470
+// This class taught me how to do UPGMA based phylogeny as part of my course work.
+//
+/////////////////////////////// 80 COLUMNS WIDE /////////////////////////////////**
+
+import java.util.ArrayDeque;
+
+/**
+ * This class flattens the species nodes of a rooted tree into arrays ordered by a post-order
+ * traversal (left subtree, right subtree, then the node itself). Every node is given an index and
+ * the descendant and ancestor links are stored as indices so algorithms that need to visit the
+ * tree bottom-up or top-down can do so with simple loops instead of recursion.
+ *
+ * Index nodes.length - 1 is always the root of the tree.
+ *
+ * @author Krischan Woehrer
+ *
+ */
+public class TreeIndex {
+    private Species[] nodes;
+    private int[] leftDescendant;
+    private int[] rightDescendant;
+    private int[] ancestor;
+    private int numberOfLeaves;
+
+    /**
+     * Constructor method that indexes every species below, and including, the root.
+     * The traversal is iterative so that very deep (unbalanced) trees do not overflow the stack.
+     * @param root The species that is the root of the tree.
+     */
+    public TreeIndex(Species root) {
+        // Two stack post-order traversal. Popping the second stack yields left, right, node.
+        ArrayDeque<Species> toVisit = new ArrayDeque<Species>();
+        ArrayDeque<Species> reversePostOrder = new ArrayDeque<Species>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Species current = toVisit.pop();
+            reversePostOrder.push(current);
+            if (current.getHeight() != 1) {
+                toVisit.push(current.getDescendants()[0]);
+                toVisit.push(current.getDescendants()[1]);
+            }
+        }
+
+        final int NUMBER_OF_NODES = reversePostOrder.size();
+        this.nodes = new Species[NUMBER_OF_NODES];
+        this.leftDescendant = new int[NUMBER_OF_NODES];
+        this.rightDescendant = new int[NUMBER_OF_NODES];
+        this.ancestor = new int[NUMBER_OF_NODES];
+
+        // Each finished subtree leaves its index on the stack, so an ancestor node finds the
+        // indices of its right and left descendants as the top two elements.
+        int[] finishedSubtrees = new int[NUMBER_OF_NODES];
+        int stackSize = 0;
+        for (int i = 0; i < NUMBER_OF_NODES; i++) {
+            Species current = reversePostOrder.pop();
+            this.nodes[i] = current;
+            this.ancestor[i] = -1;
+            if (current.getHeight() == 1) {
+                this.leftDescendant[i] = -1;
+                this.rightDescendant[i] = -1;
+                this.numberOfLeaves++;
+            } else {
+                int right = finishedSubtrees[--stackSize];
+                int left = finishedSubtrees[--stackSize];
+                this.leftDescendant[i] = left;
+                this.rightDescendant[i] = right;
+                this.ancestor[left] = i;
+                this.ancestor[right] = i;
+            }
+            finishedSubtrees[stackSize++] = i;
+        }
+    }
+
+    /**
+     * This is an accessor method that returns the species nodes in post-order.
+     * @return An array of every species in the tree, the root being the last element.
+     */
+    public Species[] getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * This is an accessor method that returns the number of nodes in the tree.
+     * @return The number of species nodes (ancestors and descendants) in the tree.
+     */
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * This is an accessor method that returns the number of leaves (initial species) in the tree.
+     * @return The number of species with a height of 1.
+     */
+    public int getNumberOfLeaves() {
+        return this.numberOfLeaves;
+    }
+
+    /**
+     * This is an accessor method that returns the index of the root.
+     * @return The index of the root node.
+     */
+    public int getRootIndex() {
+        return this.nodes.length - 1;
+    }
+
+    /**
+     * This method determines if the node at an index is a leaf (a species provided at tree
+     * instantiation).
+     * @param index The index of a node.
+     * @return True if the node has no descendants, false otherwise.
+     */
+    public boolean isLeaf(int index) {
+        return this.leftDescendant[index] == -1;
+    }
+
+    /**
+     * This is an accessor method that returns the index of the left descendant of each node.
+     * @return An array parallel to the node array. Leaves have a value of -1.
+     */
+    public int[] getLeftDescendants() {
+        return this.leftDescendant;
+    }
+
+    /**
+     * This is an accessor method that returns the index of the right descendant of each node.
+     * @return An array parallel to the node array. Leaves have a value of -1.
+     */
+    public int[] getRightDescendants() {
+        return this.rightDescendant;
+    }
+
+    /**
+     * This is an accessor method that returns the index of the ancestor of each node.
+     * @return An array parallel to the node array. The root has a value of -1.
+     */
+    public int[] getAncestors() {
+        return this.ancestor;
+    }
+}